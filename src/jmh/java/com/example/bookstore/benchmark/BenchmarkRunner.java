@@ -0,0 +1,34 @@
+package com.example.bookstore.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the selected benchmarks once per thread count in {@code bench.threads} and writes one JSON result
+ * file per run to {@code bench.output}, so results of two commits can be diffed file by file.
+ * Any program arguments are passed through as regular JMH command-line options.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path output = Path.of(System.getProperty("bench.output", "target/jmh"));
+        Files.createDirectories(output);
+
+        for (String threads : System.getProperty("bench.threads", "1").split(",")) {
+            int threadCount = Integer.parseInt(threads.trim());
+            new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threadCount)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.resolve("results-threads-" + threadCount + ".json").toString())
+                    .build())
+                    .run();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.BookstoreApplication;
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.search.CatalogFacetIndex;
+import com.example.bookstore.search.CatalogSearchIndex;
+import com.example.bookstore.service.CustomerService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application, without a web server unless asked for one, against a private in-memory H2 database
+ * and seeds it.
+ */
+final class BenchmarkSupport {
+
+    static final String[] WORDS = {
+            "shadow", "river", "empire", "garden", "winter", "silver", "ocean", "machine",
+            "history", "secret", "journey", "kingdom", "algorithm", "stranger", "harvest", "midnight"
+    };
+    static final String[] CATEGORIES = {"Fiction", "Fantasy", "Science Fiction", "Romance", "Programming", "History"};
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private BenchmarkSupport() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return builder().web(WebApplicationType.NONE).properties(properties).run();
+    }
+
+    /** Starts the embedded server on a random port, with the given extra properties. */
+    static ConfigurableApplicationContext startServer(String... properties) {
+        return builder()
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0")
+                .properties(properties)
+                .run();
+    }
+
+    private static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(BookstoreApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "logging.level.root=WARN",
+                        "spring.main.banner-mode=off");
+    }
+
+    /**
+     * Inserts {@code count} books with plenty of stock and returns the id of the first one; ids are contiguous.
+     */
+    static long seedBooks(ConfigurableApplicationContext context, int count) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long before = jdbc.queryForObject("select coalesce(max(id), 0) from books", Long.class);
+        Random random = new Random(42);
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            batch.add(new Object[]{
+                    title, "Author " + random.nextInt(count / 10 + 1), "bench-" + i,
+                    BigDecimal.valueOf(5 + random.nextInt(4_000), 2), 1_000_000_000,
+                    "A generated description of " + title, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    "Publisher " + random.nextInt(50), 1900 + random.nextInt(125)});
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                jdbc.batchUpdate("insert into books (title, author, isbn, price, stock_quantity, description, " +
+                        "category, publisher, publication_year) values (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        context.getBean(CatalogSearchIndex.class).rebuild();
+        context.getBean(CatalogFacetIndex.class).rebuild();
+        return before + 1;
+    }
+
+    static Long createCustomer(ConfigurableApplicationContext context) {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setFirstName("Bench");
+        dto.setLastName("Mark");
+        dto.setEmail("bench-" + System.nanoTime() + "@example.com");
+        dto.setPhone("+10000000000");
+        dto.setAddress("1 Benchmark Way");
+        return context.getBean(CustomerService.class).createCustomer(dto).getId();
+    }
+}
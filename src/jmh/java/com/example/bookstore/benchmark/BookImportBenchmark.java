@@ -0,0 +1,77 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.ImportReportDTO;
+import com.example.bookstore.feed.BookFeedFormat;
+import com.example.bookstore.service.BookImportService;
+import com.example.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog ingestion in rows per second: one {@code createBook} call per row versus the streaming bulk import.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BookImportBenchmark.ROWS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookImportBenchmark {
+
+    static final int ROWS = 1_000;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookImportService bookImportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        bookService = context.getBean(BookService.class);
+        bookImportService = context.getBean(BookImportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long perRowCreate() {
+        long created = 0;
+        for (int i = 0; i < ROWS; i++) {
+            long n = sequence.incrementAndGet();
+            BookDTO book = new BookDTO();
+            book.setTitle("Imported " + n);
+            book.setAuthor("Author " + n % 100);
+            book.setIsbn("import-" + n);
+            book.setPrice(new BigDecimal("9.99"));
+            book.setStockQuantity(10);
+            book.setCategory("Fiction");
+            created += bookService.createBook(book).getId();
+        }
+        return created;
+    }
+
+    @Benchmark
+    public ImportReportDTO bulkImport() throws Exception {
+        StringBuilder csv = new StringBuilder("isbn,title,author,price,stockQuantity,category\n");
+        for (int i = 0; i < ROWS; i++) {
+            long n = sequence.incrementAndGet();
+            csv.append("import-").append(n).append(",Imported ").append(n).append(",Author ").append(n % 100)
+                    .append(",9.99,10,Fiction\n");
+        }
+        return bookImportService.importBooks(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                BookFeedFormat.CSV, progress -> { });
+    }
+}
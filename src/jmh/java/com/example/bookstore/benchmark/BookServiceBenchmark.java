@@ -0,0 +1,69 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.FilterResultDTO;
+import com.example.bookstore.dto.SearchResultDTO;
+import com.example.bookstore.search.FacetQuery;
+import com.example.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private long firstBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        firstBookId = BenchmarkSupport.seedBooks(context, catalogSize);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO getBookById() {
+        return bookService.getBookById(firstBookId + ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    @Benchmark
+    public List<BookDTO> searchBooksByTitle() {
+        return bookService.searchBooksByTitle(randomWord());
+    }
+
+    @Benchmark
+    public SearchResultDTO searchBooksIndexed() {
+        return bookService.searchBooks(randomWord(), 0, 20);
+    }
+
+    // One category out of six, in stock, as the first page of a storefront filter
+    @Benchmark
+    public FilterResultDTO filterBooks() {
+        String[] categories = BenchmarkSupport.CATEGORIES;
+        String category = categories[ThreadLocalRandom.current().nextInt(categories.length)];
+        return bookService.filterBooks(new FacetQuery(Set.of(category), null, null, null, null, true), 0, 20);
+    }
+
+    private static String randomWord() {
+        return BenchmarkSupport.WORDS[ThreadLocalRandom.current().nextInt(BenchmarkSupport.WORDS.length)];
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.dto.CartDTO;
+import com.example.bookstore.service.CartService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cart operations are answered from memory; the catalog size only matters for the stock hints looked up
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    private static final int CUSTOMERS = 1_000;
+    private static final int BOOKS_PER_CART = 5;
+
+    @Param({"1000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private long firstBookId;
+    private Long[] customerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        firstBookId = BenchmarkSupport.seedBooks(context, catalogSize);
+        cartService = context.getBean(CartService.class);
+        customerIds = new Long[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerIds[i] = BenchmarkSupport.createCustomer(context);
+            for (int book = 0; book < BOOKS_PER_CART; book++) {
+                cartService.addItem(customerIds[i], firstBookId + book, 1);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Leaves the cart as it was, so every invocation sees a cart of the same size
+    @Benchmark
+    public CartDTO addAndRemoveItem() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long customerId = customerIds[random.nextInt(CUSTOMERS)];
+        Long bookId = firstBookId + BOOKS_PER_CART + random.nextInt(catalogSize - BOOKS_PER_CART);
+        cartService.addItem(customerId, bookId, 1);
+        return cartService.removeItem(customerId, bookId);
+    }
+
+    @Benchmark
+    public CartDTO getCart() {
+        return cartService.getCart(customerIds[ThreadLocalRandom.current().nextInt(CUSTOMERS)]);
+    }
+}
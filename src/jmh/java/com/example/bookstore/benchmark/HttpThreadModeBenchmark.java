@@ -0,0 +1,57 @@
+package com.example.bookstore.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer lookups over HTTP against the embedded server, with requests served on Tomcat's platform thread
+ * pool or on virtual threads behind the connection gate. Run with many client threads, for instance
+ * {@code -Dbench.threads=50,200 -Dbench.args="HttpThreadMode"}; sample time mode reports p50/p99 latencies
+ * next to the throughput. The virtual variant needs Java 21+ and fails its setup on older runtimes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpThreadModeBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21+, running on " + Runtime.version());
+        }
+        context = BenchmarkSupport.startServer(
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "bookstore.datasource.gate.enabled=" + virtualThreads);
+        Long customerId = BenchmarkSupport.createCustomer(context);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/customers/" + customerId)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getCustomer() throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
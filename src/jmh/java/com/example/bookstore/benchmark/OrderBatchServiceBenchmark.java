@@ -0,0 +1,69 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.dto.BulkStatusResultDTO;
+import com.example.bookstore.dto.BulkStatusUpdateDTO;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.service.OrderBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time to ship one warehouse wave; every invocation gets a fresh wave of confirmed orders
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBatchServiceBenchmark {
+
+    // Far above what the order sequence hands out to the customer setup
+    private static final long ID_BASE = 1_000_000_000L;
+
+    @Param({"1000", "10000"})
+    private int waveSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderBatchService orderBatchService;
+    private JdbcTemplate jdbc;
+    private Long customerId;
+    private long nextId = ID_BASE;
+    private List<Long> wave;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        orderBatchService = context.getBean(OrderBatchService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        customerId = BenchmarkSupport.createCustomer(context);
+    }
+
+    @Setup(Level.Invocation)
+    public void confirmWave() {
+        Timestamp placed = Timestamp.valueOf(LocalDateTime.now());
+        wave = new ArrayList<>(waveSize);
+        List<Object[]> rows = new ArrayList<>(waveSize);
+        for (int i = 0; i < waveSize; i++) {
+            wave.add(nextId);
+            rows.add(new Object[]{nextId++, customerId, placed});
+        }
+        jdbc.batchUpdate("insert into orders (id, customer_id, total_amount, status, order_date, version) "
+                + "values (?, ?, 9.99, 'CONFIRMED', ?, 0)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkStatusResultDTO shipWave() {
+        return orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.SHIPPED, wave, null, null, null));
+    }
+}
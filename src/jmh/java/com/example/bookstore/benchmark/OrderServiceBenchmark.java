@@ -0,0 +1,83 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private static final int HISTORY_ORDERS = 20;
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    @Param({"1", "10", "50"})
+    private int itemsPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private long firstBookId;
+    private Long customerId;
+    private Long historyCustomerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        firstBookId = BenchmarkSupport.seedBooks(context, catalogSize);
+        orderService = context.getBean(OrderService.class);
+        customerId = BenchmarkSupport.createCustomer(context);
+        historyCustomerId = BenchmarkSupport.createCustomer(context);
+        for (int i = 0; i < HISTORY_ORDERS; i++) {
+            orderService.createOrder(randomOrder(historyCustomerId));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderDTO createOrder() {
+        return orderService.createOrder(randomOrder(customerId));
+    }
+
+    // Accept-then-process intake: stores the order and its outbox entry; the intake workers settle it
+    @Benchmark
+    public OrderDTO submitOrder() {
+        return orderService.submitOrder(randomOrder(customerId));
+    }
+
+    @Benchmark
+    public List<OrderDTO> getOrdersByCustomerId() {
+        return orderService.getOrdersByCustomerId(historyCustomerId);
+    }
+
+    private OrderDTO randomOrder(Long customer) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<OrderItemDTO> items = new ArrayList<>(itemsPerOrder);
+        for (int i = 0; i < itemsPerOrder; i++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setBookId(firstBookId + random.nextInt(catalogSize));
+            item.setQuantity(1 + random.nextInt(3));
+            items.add(item);
+        }
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(customer);
+        order.setItems(items);
+        return order;
+    }
+}
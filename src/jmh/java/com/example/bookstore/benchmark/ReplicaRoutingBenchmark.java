@@ -0,0 +1,96 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.config.ReadWriteRoutingDataSource;
+import com.example.bookstore.config.ReplicaDataSource;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CursorPageDTO;
+import com.example.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The same catalog page read routed to a replica (the read-only path) and kept on the primary (inside a
+// read-write transaction). Both databases are in-memory H2 in this JVM, so the difference comes from the
+// transaction handling and the routing, not from load taken off the primary.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplicaRoutingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private TransactionTemplate readWrite;
+    private long firstBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String replicaUrl = "jdbc:h2:mem:bench-replica-" + System.nanoTime()
+                + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+        // Replicated once, so the tolerated lag outlasts the run
+        context = BenchmarkSupport.start(
+                "bookstore.datasource.replica.urls=" + replicaUrl,
+                "bookstore.datasource.replica.max-lag=1h",
+                "bookstore.datasource.replica.lag-check-interval=100ms");
+        firstBookId = BenchmarkSupport.seedBooks(context, catalogSize);
+        bookService = context.getBean(BookService.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        replicate(replicaUrl);
+        ReplicaDataSource replicas = ((ReadWriteRoutingDataSource) context.getBean(DataSource.class)).getReplicas();
+        // A replica counts as lagging until its first successful check
+        while (replicas.getLagMillis().get(0) > TimeUnit.HOURS.toMillis(1)) {
+            Thread.sleep(20);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageDTO<BookDTO> readOnReplica() {
+        return bookService.getBooksPage(randomCursor(), PAGE_SIZE);
+    }
+
+    // The read-only transaction of getBooksPage joins the read-write one, which stays on the primary
+    @Benchmark
+    public CursorPageDTO<BookDTO> readOnPrimary() {
+        long cursor = randomCursor();
+        return readWrite.execute(status -> bookService.getBooksPage(cursor, PAGE_SIZE));
+    }
+
+    private long randomCursor() {
+        return firstBookId - 1 + ThreadLocalRandom.current().nextInt(catalogSize - PAGE_SIZE);
+    }
+
+    // Copies the primary, heartbeat included, into the replica
+    private void replicate(String replicaUrl) throws SQLException {
+        List<String> script = context.getBean(JdbcTemplate.class).queryForList("script", String.class);
+        try (Connection replica = DriverManager.getConnection(replicaUrl, "sa", "");
+             Statement statement = replica.createStatement()) {
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
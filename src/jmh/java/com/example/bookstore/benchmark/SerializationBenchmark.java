@@ -0,0 +1,143 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.entity.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost of book and order lists per response format, with and without Blackbird, and with gzip on
+ * top as the server applies it. Encoded sizes are printed once per trial since they do not vary between runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"true", "false"})
+    private boolean blackbird;
+
+    @Param({"20", "100"})
+    private int listSize;
+
+    private ObjectWriter bookWriter;
+    private ObjectWriter orderWriter;
+    private List<BookDTO> books;
+    private List<OrderDTO> orders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = mapper();
+        // Writers resolved up front, so each call starts from cached serializers
+        bookWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, BookDTO.class));
+        orderWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, OrderDTO.class));
+
+        books = new ArrayList<>(listSize);
+        orders = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            books.add(book(i));
+            orders.add(order(i));
+        }
+
+        System.out.printf("%n%s (blackbird=%s), %d items: books %d bytes (%d gzipped), orders %d bytes (%d gzipped)%n",
+                format, blackbird, listSize, serializeBooks().length, serializeBooksGzipped().length,
+                serializeOrders().length, serializeOrdersGzipped().length);
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() {
+        return bookWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() {
+        return orderWriter.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] serializeBooksGzipped() throws IOException {
+        return gzip(bookWriter, books);
+    }
+
+    @Benchmark
+    public byte[] serializeOrdersGzipped() throws IOException {
+        return gzip(orderWriter, orders);
+    }
+
+    private static byte[] gzip(ObjectWriter writer, Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            writer.writeValue(out, value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private ObjectMapper mapper() {
+        MapperBuilder<?, ?> builder = switch (format) {
+            case "cbor" -> CBORMapper.builder();
+            case "smile" -> SmileMapper.builder();
+            default -> JsonMapper.builder();
+        };
+        if (blackbird) {
+            builder.addModule(new BlackbirdModule());
+        }
+        return builder.build();
+    }
+
+    private static BookDTO book(long id) {
+        String title = BenchmarkSupport.WORDS[(int) (id % BenchmarkSupport.WORDS.length)] + " " + id;
+        return new BookDTO(id, title, "Author " + id % 97, "978-" + (1_000_000_000L + id), new BigDecimal("19.99"),
+                100, description(id),
+                BenchmarkSupport.CATEGORIES[(int) (id % BenchmarkSupport.CATEGORIES.length)], "Publisher " + id % 50,
+                1900 + (int) (id % 125), 3L);
+    }
+
+    // Words drawn at random so that gzip does not see one sentence repeated
+    private static String description(long id) {
+        Random random = new Random(id);
+        StringBuilder description = new StringBuilder(1000);
+        while (description.length() < 1000) {
+            description.append(BenchmarkSupport.WORDS[random.nextInt(BenchmarkSupport.WORDS.length)]).append(' ');
+        }
+        return description.substring(0, 1000);
+    }
+
+    private static OrderDTO order(long id) {
+        List<OrderItemDTO> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < 3; i++) {
+            BookDTO book = book(id * 3 + i);
+            BigDecimal subtotal = book.getPrice().multiply(BigDecimal.valueOf(2));
+            items.add(new OrderItemDTO(id * 3 + i, book.getId(), 2, book.getPrice(), subtotal, book.getTitle(),
+                    book.getAuthor()));
+            total = total.add(subtotal);
+        }
+        LocalDateTime ordered = LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id);
+        return new OrderDTO(id, id % 1000, items, total, OrderStatus.SHIPPED, ordered, ordered.plusDays(1), null,
+                "1 Benchmark Way", 2L);
+    }
+}
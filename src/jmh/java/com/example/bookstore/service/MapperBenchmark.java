@@ -0,0 +1,73 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.entity.Customer;
+import com.example.bookstore.entity.Order;
+import com.example.bookstore.entity.OrderItem;
+import com.example.bookstore.entity.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping cost in isolation; lives in the service package to reach the package-private mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int itemsPerOrder;
+
+    private Book book;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        book = book(1L);
+        Customer customer = new Customer();
+        customer.setId(1L);
+
+        order = new Order();
+        order.setId(1L);
+        order.setCustomer(customer);
+        order.setStatus(OrderStatus.PENDING);
+        order.setOrderDate(LocalDateTime.now());
+        order.setShippingAddress("1 Benchmark Way");
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemsPerOrder; i++) {
+            OrderItem item = new OrderItem();
+            item.setId((long) i);
+            item.setBook(book((long) i));
+            item.setQuantity(2);
+            item.setPrice(item.getBook().getPrice());
+            item.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(2)));
+            order.addOrderItem(item);
+            total = total.add(item.getSubtotal());
+        }
+        order.setTotalAmount(total);
+    }
+
+    @Benchmark
+    public BookDTO bookToDTO() {
+        return BookService.convertToDTO(book);
+    }
+
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return OrderService.convertToDTO(order);
+    }
+
+    private static Book book(Long id) {
+        return new Book(id, "Title " + id, "Author " + id, "isbn-" + id, new BigDecimal("19.99"), 100,
+                "A description long enough to be representative of a catalog entry.", "Fiction", "Publisher", 2001, null);
+    }
+}
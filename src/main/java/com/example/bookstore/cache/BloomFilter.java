@@ -0,0 +1,94 @@
+package com.example.bookstore.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over 64-bit key hashes: {@link #mightContain} never answers {@code false} for a key
+ * that was {@link #put}, and answers {@code true} for an absent key with about the false positive rate it was
+ * sized for as long as no more than the expected number of keys are put. Safe for concurrent use.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong keys = new AtomicLong();
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long n = Math.max(1, expectedKeys);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64));
+        this.bits = (long) words.length() * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    public void put(long hash) {
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        keys.incrementAndGet();
+    }
+
+    public boolean mightContain(long hash) {
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Keys put so far, counting repeated puts of the same key. */
+    public long size() {
+        return keys.get();
+    }
+
+    /** Number of keys the filter was sized for; beyond it the false positive rate climbs. */
+    public long capacity() {
+        return capacity;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public static long hash(long key) {
+        return mix(key);
+    }
+
+    // FNV-1a over the UTF-8 bytes, then spread by the Murmur3 finalizer
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // Odd, so that the probe sequence h1 + i * h2 visits distinct bits
+    private static long secondHash(long hash) {
+        return mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
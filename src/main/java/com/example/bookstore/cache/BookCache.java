@@ -0,0 +1,153 @@
+package com.example.bookstore.cache;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CacheStatsDTO;
+import com.example.bookstore.event.BookChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of {@link BookDTO}s keyed by id, with an ISBN to id index in front of it. Both are
+ * size- and TTL-bounded Caffeine (W-TinyLFU) caches.
+ * <p>
+ * Cached values include the stock count, so every stock change must publish a {@link BookChangedEvent}.
+ * Entries are evicted as soon as the event is published and again after the writing transaction commits,
+ * and a load that overlapped an eviction is discarded, so a reader can never re-install pre-commit state.
+ * <p>
+ * Both caches are registered with Micrometer as {@code cache.*} meters tagged {@code cache=books.byId} and
+ * {@code cache=books.byIsbn}.
+ */
+@Component
+public class BookCache {
+
+    private final Cache<Long, BookDTO> byId;
+    private final Cache<String, Long> idByIsbn;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BookCache(@Value("${bookstore.cache.books.maximum-size:10000}") long maximumSize,
+                     @Value("${bookstore.cache.books.ttl:10m}") Duration ttl,
+                     MeterRegistry registry) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByIsbn = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, byId, "books.byId");
+        CaffeineCacheMetrics.monitor(registry, idByIsbn, "books.byIsbn");
+    }
+
+    public Optional<BookDTO> getById(Long id, Function<Long, Optional<BookDTO>> loader) {
+        BookDTO cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        long stamp = invalidations.get();
+        Optional<BookDTO> loaded = loader.apply(id);
+        loaded.ifPresent(dto -> install(dto, stamp));
+        return loaded;
+    }
+
+    public Optional<BookDTO> getByIsbn(String isbn, Function<String, Optional<BookDTO>> loader) {
+        Long id = idByIsbn.getIfPresent(isbn);
+        if (id != null) {
+            BookDTO cached = byId.getIfPresent(id);
+            // The index can outlive an ISBN change if the id entry was evicted in between
+            if (cached != null && isbn.equals(cached.getIsbn())) {
+                return Optional.of(copy(cached));
+            }
+        }
+        long stamp = invalidations.get();
+        Optional<BookDTO> loaded = loader.apply(isbn);
+        loaded.ifPresent(dto -> install(dto, stamp));
+        return loaded;
+    }
+
+    /**
+     * Returns the cached value without loading it; for callers that only want a hint.
+     */
+    public Optional<BookDTO> peek(Long id) {
+        return Optional.ofNullable(byId.asMap().get(id)).map(BookCache::copy);
+    }
+
+    /**
+     * Returns the version of the cached value, if any, without copying it.
+     */
+    public Optional<Long> peekVersion(Long id) {
+        return Optional.ofNullable(byId.asMap().get(id)).map(BookDTO::getVersion);
+    }
+
+    /**
+     * Returns the stock of the cached value, if any, without copying it.
+     */
+    public Optional<Integer> peekStock(Long id) {
+        return Optional.ofNullable(byId.asMap().get(id)).map(BookDTO::getStockQuantity);
+    }
+
+    public void invalidate(Collection<Long> ids) {
+        invalidations.incrementAndGet();
+        byId.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        byId.invalidateAll();
+        idByIsbn.invalidateAll();
+    }
+
+    public List<CacheStatsDTO> stats() {
+        return List.of(toStats("books.byId", byId), toStats("books.byIsbn", idByIsbn));
+    }
+
+    // Drops entries the writing transaction itself could otherwise read back
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        invalidate(event.bookIds());
+    }
+
+    // Drops entries concurrent readers loaded before the commit became visible
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookChangeCommitted(BookChangedEvent event) {
+        invalidate(event.bookIds());
+    }
+
+    private void install(BookDTO dto, long stamp) {
+        byId.put(dto.getId(), copy(dto));
+        idByIsbn.put(dto.getIsbn(), dto.getId());
+        // Put first, then check: an invalidation racing with the load either sees this entry or bumps the stamp
+        if (invalidations.get() != stamp) {
+            byId.invalidate(dto.getId());
+        }
+    }
+
+    private static BookDTO copy(BookDTO dto) {
+        return new BookDTO(dto.getId(), dto.getTitle(), dto.getAuthor(), dto.getIsbn(), dto.getPrice(),
+                dto.getStockQuantity(), dto.getDescription(), dto.getCategory(), dto.getPublisher(),
+                dto.getPublicationYear(), dto.getVersion());
+    }
+
+    private static CacheStatsDTO toStats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.bookstore.cache;
+
+import com.example.bookstore.dto.CacheStatsDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Answers "certainly not there" for lookup keys without a query: a {@link BloomFilter} over every existing key
+ * rules out keys that never existed, and a short-lived cache of confirmed misses covers the filter's false
+ * positives and keys that were deleted. A key passing both is looked up as usual.
+ * <p>
+ * Writers must report every key they create through {@link #added}, before the commit and again after it.
+ * That puts the key in the filter, drops any cached miss for it, and keeps misses for it from being cached
+ * for a grace period, since a reader may still see a snapshot or a replica from before the insert.
+ */
+public class NegativeLookupCache<K> {
+
+    private final String name;
+    private final ToLongFunction<K> hasher;
+    private final long minimumCapacity;
+    private final double falsePositiveRate;
+    private final Cache<K, Boolean> misses;
+    private final Cache<K, Boolean> recentlyAdded;
+
+    // Null until the first load; keys added while a load runs go to both filters
+    private volatile BloomFilter filter;
+    private volatile BloomFilter loading;
+
+    private final LongAdder filterRejections = new LongAdder();
+    private final LongAdder missRejections = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    public NegativeLookupCache(String name, ToLongFunction<K> hasher, long minimumCapacity, double falsePositiveRate,
+                               long maximumMisses, Duration missTtl, Duration addedGrace) {
+        this.name = name;
+        this.hasher = hasher;
+        this.minimumCapacity = minimumCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(maximumMisses)
+                .expireAfterWrite(missTtl)
+                .recordStats()
+                .build();
+        this.recentlyAdded = Caffeine.newBuilder()
+                .expireAfterWrite(addedGrace)
+                .build();
+    }
+
+    /**
+     * Runs the loader unless the key is known to be missing, and remembers the key as missing when the
+     * loader finds nothing.
+     */
+    public <T> Optional<T> lookup(K key, Function<K, Optional<T>> loader) {
+        if (!mightExist(key)) {
+            return Optional.empty();
+        }
+        passed.increment();
+        Optional<T> result = loader.apply(key);
+        if (result.isEmpty()) {
+            recordMiss(key);
+        }
+        return result;
+    }
+
+    /**
+     * False when the key is known to be missing. Cheap enough for controllers to answer a 404 before the
+     * service (and its transaction) is involved.
+     */
+    public boolean mightExist(K key) {
+        if (misses.getIfPresent(key) != null) {
+            missRejections.increment();
+            return false;
+        }
+        // A reload whose query ran on a snapshot from before the insert may have dropped the key from the filter
+        if (recentlyAdded.getIfPresent(key) != null) {
+            return true;
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(hasher.applyAsLong(key))) {
+            filterRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void added(K key) {
+        recentlyAdded.put(key, Boolean.TRUE);
+        long hash = hasher.applyAsLong(key);
+        // Loading first: once it is cleared, the filter it was building is already the current one
+        BloomFilter pending = loading;
+        if (pending != null) {
+            pending.put(hash);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(hash);
+        }
+        misses.invalidate(key);
+    }
+
+    /**
+     * Replaces the filter with one holding the given keys, sized for twice their number so that it can
+     * absorb growth until the next load. The keys are only queried once the new filter receives
+     * {@link #added} keys: a key committed after the query started reaches it that way, and one committed
+     * before is in the query's result.
+     */
+    public void load(long keyCount, Supplier<Stream<K>> keys) {
+        BloomFilter fresh = new BloomFilter(Math.max(minimumCapacity, keyCount * 2), falsePositiveRate);
+        loading = fresh;
+        try (Stream<K> stream = keys.get()) {
+            Iterator<K> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                fresh.put(hasher.applyAsLong(iterator.next()));
+            }
+            filter = fresh;
+        } finally {
+            loading = null;
+        }
+    }
+
+    /** True when more keys were added than the filter was sized for, so its false positive rate has grown. */
+    public boolean isOverCapacity() {
+        BloomFilter current = filter;
+        return current != null && current.size() > current.capacity();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Hits are lookups answered without a query (by the filter or a cached miss), misses the ones that ran;
+     * size and evictions are those of the miss cache.
+     */
+    public CacheStatsDTO stats() {
+        long hits = filterRejections.sum() + missRejections.sum();
+        long lookups = hits + passed.sum();
+        return new CacheStatsDTO(name, misses.estimatedSize(), hits, passed.sum(),
+                lookups == 0 ? 1.0 : (double) hits / lookups, misses.stats().evictionCount());
+    }
+
+    // Put first, then check: an add racing with the miss either sees the entry or is seen here
+    private void recordMiss(K key) {
+        if (recentlyAdded.getIfPresent(key) == null) {
+            misses.put(key, Boolean.TRUE);
+            if (recentlyAdded.getIfPresent(key) != null) {
+                misses.invalidate(key);
+            }
+        }
+    }
+}
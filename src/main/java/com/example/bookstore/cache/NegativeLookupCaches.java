@@ -0,0 +1,150 @@
+package com.example.bookstore.cache;
+
+import com.example.bookstore.dto.CacheStatsDTO;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The {@link NegativeLookupCache}s in front of book id and ISBN lookups and customer id and email lookups.
+ * <p>
+ * Filters are loaded from the primary on startup, since a lagging replica could leave out recent keys, and
+ * reloaded larger once more keys were added than they were sized for. Book keys follow
+ * {@link BookChangedEvent}s; customer writes are reported by {@code CustomerService} directly.
+ */
+@Slf4j
+@Component
+public class NegativeLookupCaches {
+
+    private final BookRepository bookRepository;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final NegativeLookupCache<Long> bookIds;
+    private final NegativeLookupCache<String> isbns;
+    private final NegativeLookupCache<Long> customerIds;
+    private final NegativeLookupCache<String> emails;
+
+    public NegativeLookupCaches(BookRepository bookRepository, CustomerRepository customerRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${bookstore.cache.negative.minimum-capacity:100000}") long minimumCapacity,
+                                @Value("${bookstore.cache.negative.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${bookstore.cache.negative.misses.maximum-size:100000}") long maximumMisses,
+                                @Value("${bookstore.cache.negative.misses.ttl:30s}") Duration missTtl,
+                                @Value("${bookstore.datasource.replica.max-lag:5s}") Duration addedGrace) {
+        this.bookRepository = bookRepository;
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookIds = new NegativeLookupCache<>("books.missingIds", BloomFilter::hash, minimumCapacity,
+                falsePositiveRate, maximumMisses, missTtl, addedGrace);
+        this.isbns = new NegativeLookupCache<>("books.missingIsbns", BloomFilter::hash, minimumCapacity,
+                falsePositiveRate, maximumMisses, missTtl, addedGrace);
+        this.customerIds = new NegativeLookupCache<>("customers.missingIds", BloomFilter::hash, minimumCapacity,
+                falsePositiveRate, maximumMisses, missTtl, addedGrace);
+        this.emails = new NegativeLookupCache<>("customers.missingEmails", BloomFilter::hash, minimumCapacity,
+                falsePositiveRate, maximumMisses, missTtl, addedGrace);
+    }
+
+    public NegativeLookupCache<Long> bookIds() {
+        return bookIds;
+    }
+
+    public NegativeLookupCache<String> isbns() {
+        return isbns;
+    }
+
+    public NegativeLookupCache<Long> customerIds() {
+        return customerIds;
+    }
+
+    public NegativeLookupCache<String> emails() {
+        return emails;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        long started = System.currentTimeMillis();
+        load(bookIds, bookRepository::count, bookRepository::streamAllIds);
+        load(isbns, bookRepository::count, bookRepository::streamAllIsbns);
+        load(customerIds, customerRepository::count, customerRepository::streamAllIds);
+        load(emails, customerRepository::count, customerRepository::streamAllEmails);
+        log.info("Negative lookup filters loaded in {} ms", System.currentTimeMillis() - started);
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.cache.negative.capacity-check:1m}")
+    public void reloadFullFilters() {
+        if (bookIds.isOverCapacity() || isbns.isOverCapacity()) {
+            load(bookIds, bookRepository::count, bookRepository::streamAllIds);
+            load(isbns, bookRepository::count, bookRepository::streamAllIsbns);
+        }
+        if (customerIds.isOverCapacity() || emails.isOverCapacity()) {
+            load(customerIds, customerRepository::count, customerRepository::streamAllIds);
+            load(emails, customerRepository::count, customerRepository::streamAllEmails);
+        }
+    }
+
+    // Created books and ISBN changes; updates without a new ISBN re-add the same key, which is harmless
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() != BookChangedEvent.Type.CREATED && event.type() != BookChangedEvent.Type.UPDATED) {
+            return;
+        }
+        List<String> changedIsbns = bookRepository.findIsbnsByIdIn(event.bookIds());
+        addNowAndAfterCommit(() -> {
+            event.bookIds().forEach(bookIds::added);
+            changedIsbns.forEach(isbns::added);
+        });
+    }
+
+    public void customerSaved(Long id, String email) {
+        addNowAndAfterCommit(() -> {
+            customerIds.added(id);
+            emails.added(email);
+        });
+    }
+
+    public List<CacheStatsDTO> bookStats() {
+        return List.of(bookIds.stats(), isbns.stats());
+    }
+
+    public List<CacheStatsDTO> customerStats() {
+        return List.of(customerIds.stats(), emails.stats());
+    }
+
+    private <K> void load(NegativeLookupCache<K> cache, LongSupplier count, Supplier<Stream<K>> keys) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Counted before the cursor opens: a streaming result set keeps the connection busy. The count
+            // only sizes the filter; the key query runs inside load, once inserts are also sent to the new filter
+            cache.load(count.getAsLong(), keys);
+        });
+    }
+
+    // Once for readers inside the writing transaction, once more to restart the grace period at the commit
+    private static void addNowAndAfterCommit(Runnable add) {
+        add.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add.run();
+                }
+            });
+        }
+    }
+}
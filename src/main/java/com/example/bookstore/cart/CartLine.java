@@ -0,0 +1,4 @@
+package com.example.bookstore.cart;
+
+public record CartLine(long bookId, int quantity) {
+}
@@ -0,0 +1,173 @@
+package com.example.bookstore.cart;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Shopping carts held in memory only, keyed by customer id. The store is a size-bounded Caffeine cache whose
+ * entries expire after the configured idle time; each cart keeps its lines in two parallel primitive arrays,
+ * so a cart of a few books is a handful of small objects. Every operation runs inside a per-customer
+ * {@code compute}, or for {@link #take} a {@code remove}, which makes it atomic against concurrent requests
+ * of the same customer and counts as an access for the idle expiry. A cart whose last line is removed is dropped.
+ */
+public class CartStore {
+
+    private final Cache<Long, Cart> carts;
+    private final int maxLines;
+    private final int maxQuantity;
+
+    public CartStore(long maxCarts, Duration idleTimeout, int maxLines, int maxQuantity, Ticker ticker) {
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+        this.maxLines = maxLines;
+        this.maxQuantity = maxQuantity;
+    }
+
+    /** Adds to the quantity of a line, creating the line and the cart as needed. */
+    public List<CartLine> add(long customerId, long bookId, int quantity) {
+        return update(customerId, cart -> cart.set(bookId, cart.quantity(bookId) + quantity));
+    }
+
+    /** Replaces the quantity of a line; zero removes it. */
+    public List<CartLine> setQuantity(long customerId, long bookId, int quantity) {
+        return update(customerId, cart -> cart.set(bookId, quantity));
+    }
+
+    public List<CartLine> remove(long customerId, long bookId) {
+        return update(customerId, cart -> cart.set(bookId, 0));
+    }
+
+    /**
+     * Removes the whole cart in one step and returns its lines, or none if there is no cart. A concurrent
+     * second take, such as a repeated checkout, finds the cart gone.
+     */
+    public List<CartLine> take(long customerId) {
+        Cart cart = carts.asMap().remove(customerId);
+        return cart != null ? cart.lines() : List.of();
+    }
+
+    /**
+     * Puts taken lines back, for instance after a failed checkout, ahead of any added since and adding to a
+     * book added again. Limits are not enforced beyond capping each quantity, so nothing taken is lost.
+     */
+    public List<CartLine> restore(long customerId, List<CartLine> lines) {
+        return update(customerId, cart -> {
+            Cart restored = new Cart();
+            for (CartLine line : lines) {
+                restored.put(line.bookId(), line.quantity());
+            }
+            for (CartLine line : cart.lines()) {
+                restored.put(line.bookId(), Math.min(maxQuantity, restored.quantity(line.bookId()) + line.quantity()));
+            }
+            cart.replaceWith(restored);
+        });
+    }
+
+    public List<CartLine> lines(long customerId) {
+        List<List<CartLine>> snapshot = new ArrayList<>(1);
+        carts.asMap().computeIfPresent(customerId, (id, cart) -> {
+            snapshot.add(cart.lines());
+            return cart;
+        });
+        return snapshot.isEmpty() ? List.of() : snapshot.get(0);
+    }
+
+    public void clear(long customerId) {
+        carts.invalidate(customerId);
+    }
+
+    public long size() {
+        carts.cleanUp();
+        return carts.estimatedSize();
+    }
+
+    private List<CartLine> update(long customerId, Consumer<Cart> change) {
+        List<List<CartLine>> snapshot = new ArrayList<>(1);
+        carts.asMap().compute(customerId, (id, cart) -> {
+            Cart updated = cart != null ? cart : new Cart();
+            change.accept(updated);
+            snapshot.add(updated.lines());
+            return updated.size == 0 ? null : updated;
+        });
+        return snapshot.get(0);
+    }
+
+    // Only touched inside compute for its customer, so never by two threads at once
+    private final class Cart {
+
+        private long[] bookIds = new long[4];
+        private int[] quantities = new int[4];
+        private int size;
+
+        int quantity(long bookId) {
+            int index = indexOf(bookId);
+            return index < 0 ? 0 : quantities[index];
+        }
+
+        void set(long bookId, int quantity) {
+            if (quantity < 0 || quantity > maxQuantity) {
+                throw new IllegalArgumentException("Quantity must be between 0 and " + maxQuantity);
+            }
+            if (quantity > 0 && indexOf(bookId) < 0 && size == maxLines) {
+                throw new IllegalArgumentException("A cart holds at most " + maxLines + " different books");
+            }
+            put(bookId, quantity);
+        }
+
+        // set without the limits
+        void put(long bookId, int quantity) {
+            int index = indexOf(bookId);
+            if (index >= 0) {
+                if (quantity > 0) {
+                    quantities[index] = quantity;
+                } else {
+                    // Keep lines in the order they were added
+                    System.arraycopy(bookIds, index + 1, bookIds, index, size - index - 1);
+                    System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+                    size--;
+                }
+            } else if (quantity > 0) {
+                if (size == bookIds.length) {
+                    bookIds = Arrays.copyOf(bookIds, size * 2);
+                    quantities = Arrays.copyOf(quantities, size * 2);
+                }
+                bookIds[size] = bookId;
+                quantities[size] = quantity;
+                size++;
+            }
+        }
+
+        void replaceWith(Cart other) {
+            bookIds = other.bookIds;
+            quantities = other.quantities;
+            size = other.size;
+        }
+
+        List<CartLine> lines() {
+            List<CartLine> lines = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                lines.add(new CartLine(bookIds[i], quantities[i]));
+            }
+            return lines;
+        }
+
+        private int indexOf(long bookId) {
+            for (int i = 0; i < size; i++) {
+                if (bookIds[i] == bookId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bookstore.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Makes {@code server.compression.min-response-size} apply to API responses. Message converters flush the
+ * response once the body is written, which commits it before its length is known, and the server then
+ * compresses it however small it is. Flushes are held back until the body reaches the threshold: a smaller
+ * body stays in the server's buffer and is sent uncompressed with a {@code Content-Length} when the request
+ * completes. NDJSON streams flush on purpose and are passed through.
+ */
+@Component
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private final long threshold;
+
+    public CompressionThresholdFilter(@Value("${server.compression.min-response-size:2KB}") DataSize threshold) {
+        this.threshold = threshold.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, new ThresholdResponse(response));
+    }
+
+    private class ThresholdResponse extends HttpServletResponseWrapper {
+
+        private ThresholdOutputStream out;
+
+        ThresholdResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (out == null) {
+                out = new ThresholdOutputStream(this, super.getOutputStream());
+            }
+            return out;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (out == null || out.passFlush()) {
+                super.flushBuffer();
+            }
+        }
+    }
+
+    private class ThresholdOutputStream extends ServletOutputStream {
+
+        private final HttpServletResponse response;
+        private final ServletOutputStream delegate;
+        private long written;
+
+        ThresholdOutputStream(HttpServletResponse response, ServletOutputStream delegate) {
+            this.response = response;
+            this.delegate = delegate;
+        }
+
+        boolean passFlush() {
+            String contentType = response.getContentType();
+            return written >= threshold
+                    || (contentType != null && contentType.startsWith(MediaType.APPLICATION_NDJSON_VALUE));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (passFlush()) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bookstore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConnectionGateDataSource} sized to the Hikari pool in front of the pool. Enabled by the
+ * {@code virtual} profile, where request concurrency is no longer capped by Tomcat's thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.datasource.gate.enabled", havingValue = "true")
+public class ConnectionGateConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionGatePostProcessor() {
+        return new ConnectionGatePostProcessor();
+    }
+
+    // Ordered so the gate sits directly on the pool, inside any routing wrapper added later
+    private static final class ConnectionGatePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                return new ConnectionGateDataSource(hikari, hikari.getMaximumPoolSize(),
+                        Duration.ofMillis(hikari.getConnectionTimeout()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
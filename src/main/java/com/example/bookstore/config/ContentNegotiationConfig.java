@@ -0,0 +1,62 @@
+package com.example.bookstore.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Serves every endpoint as CBOR ({@code application/cbor}) or Smile ({@code application/x-jackson-smile})
+ * besides JSON, chosen by the request's {@code Accept} header; request bodies are read in the same formats.
+ * All three mappers share the registered Jackson modules, Blackbird among them, which replaces reflective
+ * property access with generated lambdas. Responses vary by {@code Accept}, so caches keep one copy per format.
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<CBORMapper> cborMapper;
+    private final ObjectProvider<JacksonModule> modules;
+
+    public ContentNegotiationConfig(ObjectProvider<CBORMapper> cborMapper, ObjectProvider<JacksonModule> modules) {
+        this.cborMapper = cborMapper;
+        this.modules = modules;
+    }
+
+    // Picked up by the auto-configured JSON and CBOR mappers along with any other module bean
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        SmileMapper smileMapper = SmileMapper.builder()
+                .addModules(modules.orderedStream().toList())
+                .build();
+        builder.withCborConverter(new JacksonCborHttpMessageConverter(cborMapper.getObject()))
+                .withSmileConverter(new JacksonSmileHttpMessageConverter(smileMapper));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.metrics.SqlStatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    // Applied to the application task executor, which also runs async MVC work such as streamed bodies
+    @Bean
+    public TaskDecorator sqlStatementCounterTaskDecorator(SqlStatementCounter sqlStatementCounter) {
+        return sqlStatementCounter::propagate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bookstore.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to the replicas and everything else to the primary. The physical
+ * connection is only fetched on the first statement, by which time the transaction manager has marked
+ * the connection read-only or not, so the choice follows {@code @Transactional(readOnly = true)}.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final ReplicaDataSource replicas;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaDataSource replicas) {
+        super(primary);
+        this.replicas = replicas;
+        setReadOnlyDataSource(replicas);
+    }
+
+    public ReplicaDataSource getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (obtainTargetDataSource() instanceof AutoCloseable primary) {
+            primary.close();
+        }
+    }
+}
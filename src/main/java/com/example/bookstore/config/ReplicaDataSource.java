@@ -0,0 +1,133 @@
+package com.example.bookstore.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections to read replicas, round-robin over the replicas whose lag is within the tolerance,
+ * and to the primary when none is. Lag is measured with a heartbeat: every check writes the current time
+ * to {@code replication_heartbeat} on the primary and reads it back from each replica, so the figure is
+ * accurate to within one check interval. A replica counts as lagging until its first successful check.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final ScheduledExecutorService lagChecker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag, Duration checkInterval) {
+        this.primary = primary;
+        replicas.forEach(replica -> this.replicas.add(new Replica(replica)));
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            Replica replica = replicas.get(index);
+            if (replica.lagMillis <= maxLagMillis) {
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaConnections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    log.warn("Replica {} unavailable, excluding it until the next lag check: {}", index, e.getMessage());
+                    replica.lagMillis = Long.MAX_VALUE;
+                }
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    // The replicas are pools opened with their own credentials, which cannot be swapped per connection
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the pool credentials");
+    }
+
+    /** Current lag per replica in milliseconds; {@link Long#MAX_VALUE} when unknown or unreachable. */
+    public List<Long> getLagMillis() {
+        return replicas.stream().map(replica -> replica.lagMillis).toList();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.sum();
+    }
+
+    void checkLag() {
+        long now = System.currentTimeMillis();
+        try (Connection connection = primary.getConnection();
+             PreparedStatement beat = connection.prepareStatement(
+                     "update replication_heartbeat set beat_millis = ? where id = 1")) {
+            beat.setLong(1, now);
+            beat.executeUpdate();
+        } catch (SQLException e) {
+            // Before the migrations have run, or while the primary is down; replicas age until it recovers
+            log.debug("Could not write replication heartbeat: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 PreparedStatement read = connection.prepareStatement(
+                         "select beat_millis from replication_heartbeat where id = 1");
+                 ResultSet rs = read.executeQuery()) {
+                replica.lagMillis = rs.next() && rs.getLong(1) > 0 ? Math.max(0, now - rs.getLong(1)) : Long.MAX_VALUE;
+            } catch (SQLException e) {
+                replica.lagMillis = Long.MAX_VALUE;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private volatile long lagMillis = Long.MAX_VALUE;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookstore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to the replicas listed in {@code bookstore.datasource.replica.urls}. Each
+ * replica gets its own Hikari pool with the primary's credentials; replicas lagging by more than
+ * {@code bookstore.datasource.replica.max-lag} are skipped, and reads fall back to the primary when all are.
+ * With the property set but empty there is no routing.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.datasource.replica.urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource primary && beanName.equals("dataSource")) {
+                    Binder binder = Binder.get(environment);
+                    List<String> urls = replicaUrls(binder);
+                    // An empty list, as a profile switching replicas off sets it, leaves the primary unwrapped
+                    if (!urls.isEmpty()) {
+                        return new ReadWriteRoutingDataSource(primary, replicas(primary, urls, binder));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static List<String> replicaUrls(Binder binder) {
+        return binder.bind("bookstore.datasource.replica.urls", String[].class)
+                .map(urls -> Arrays.stream(urls).map(String::trim).filter(url -> !url.isEmpty()).toList())
+                .orElse(List.of());
+    }
+
+    private static ReplicaDataSource replicas(DataSource primary, List<String> urls, Binder binder) {
+        int poolSize = binder.bind("bookstore.datasource.replica.pool-size", Integer.class).orElse(10);
+        HikariDataSource primaryPool = unwrapPool(primary);
+        String username = primaryPool != null ? primaryPool.getUsername()
+                : binder.bind("spring.datasource.username", String.class).orElse(null);
+        String password = primaryPool != null ? primaryPool.getPassword()
+                : binder.bind("spring.datasource.password", String.class).orElse(null);
+        List<DataSource> pools = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(urls.get(i));
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setReadOnly(true);
+            pools.add(pool);
+        }
+        return new ReplicaDataSource(primary, pools,
+                binder.bind("bookstore.datasource.replica.max-lag", Duration.class).orElse(Duration.ofSeconds(5)),
+                binder.bind("bookstore.datasource.replica.lag-check-interval", Duration.class).orElse(Duration.ofSeconds(1)));
+    }
+
+    private static HikariDataSource unwrapPool(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -1,14 +1,39 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.cache.BookCache;
+import com.example.bookstore.cache.NegativeLookupCaches;
+import com.example.bookstore.dto.BestsellerDTO;
 import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CacheStatsDTO;
+import com.example.bookstore.dto.CursorPageDTO;
+import com.example.bookstore.dto.FilterResultDTO;
+import com.example.bookstore.dto.ImportReportDTO;
+import com.example.bookstore.dto.SearchResultDTO;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.feed.BookFeedFormat;
+import com.example.bookstore.report.BestsellerLeaderboard;
+import com.example.bookstore.report.BestsellerWindow;
+import com.example.bookstore.search.FacetQuery;
+import com.example.bookstore.service.BookImportService;
 import com.example.bookstore.service.BookService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
@@ -16,20 +41,70 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final BookCache bookCache;
+    private final NegativeLookupCaches negativeLookupCaches;
+    private final BookImportService bookImportService;
+    private final BestsellerLeaderboard bestsellerLeaderboard;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public ResponseEntity<CursorPageDTO<BookDTO>> getAllBooks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + BookService.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(bookService.getBooksPage(after, size));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookService::exportBooks);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
-        return ResponseEntity.ok(bookService.getBookById(id));
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (!negativeLookupCaches.bookIds().mightExist(id)) {
+            throw new ResourceNotFoundException("Book not found with id: " + id);
+        }
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(id, bookService.getBookVersion(id));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+        }
+        BookDTO book = bookService.getBookById(id);
+        return ResponseEntity.ok().eTag(ETags.of(book.getId(), book.getVersion())).body(book);
     }
 
     @GetMapping("/isbn/{isbn}")
     public ResponseEntity<BookDTO> getBookByIsbn(@PathVariable String isbn) {
-        return ResponseEntity.ok(bookService.getBookByIsbn(isbn));
+        if (!negativeLookupCaches.isbns().mightExist(isbn)) {
+            throw new ResourceNotFoundException("Book not found with ISBN: " + isbn);
+        }
+        BookDTO book = bookService.getBookByIsbn(isbn);
+        return ResponseEntity.ok().eTag(ETags.of(book.getId(), book.getVersion())).body(book);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<SearchResultDTO> searchBooks(@RequestParam String q,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookService.searchBooks(q, page, size));
+    }
+
+    // Values repeat within a facet (OR) and facets combine (AND), e.g. ?category=Fiction&category=Fantasy&inStock=true
+    @GetMapping("/filter")
+    public ResponseEntity<FilterResultDTO> filterBooks(@RequestParam(required = false) Set<String> category,
+                                                       @RequestParam(required = false) Set<String> publisher,
+                                                       @RequestParam(required = false) Set<String> priceBand,
+                                                       @RequestParam(required = false) Integer yearFrom,
+                                                       @RequestParam(required = false) Integer yearTo,
+                                                       @RequestParam(required = false) Boolean inStock,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        FacetQuery query = new FacetQuery(category, publisher, priceBand, yearFrom, yearTo, inStock);
+        return ResponseEntity.ok(bookService.filterBooks(query, page, size));
     }
 
     @GetMapping("/search/title")
@@ -42,14 +117,39 @@ public class BookController {
         return ResponseEntity.ok(bookService.searchBooksByAuthor(author));
     }
 
+    // List tags fingerprint the matching rows; the list itself is only loaded when the tag has changed
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<BookDTO>> getBooksByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(bookService.getBooksByCategory(category));
+    public ResponseEntity<List<BookDTO>> getBooksByCategory(@PathVariable String category,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of(bookService.getBooksByCategoryVersion(category));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).body(bookService.getBooksByCategory(category));
     }
 
     @GetMapping("/available")
-    public ResponseEntity<List<BookDTO>> getAvailableBooks() {
-        return ResponseEntity.ok(bookService.getAvailableBooks());
+    public ResponseEntity<List<BookDTO>> getAvailableBooks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of(bookService.getAvailableBooksVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).body(bookService.getAvailableBooks());
+    }
+
+    // Served from memory, without a transaction
+    @GetMapping("/bestsellers")
+    public ResponseEntity<List<BestsellerDTO>> getBestsellers(@RequestParam(defaultValue = "day") String window,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(bestsellerLeaderboard.top(BestsellerWindow.of(window), limit));
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>(bookCache.stats());
+        stats.addAll(negativeLookupCaches.bookStats());
+        return ResponseEntity.ok(stats);
     }
 
     @PostMapping
@@ -57,6 +157,22 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(bookService.createBook(bookDTO));
     }
 
+    // Streams one progress line per committed chunk, then the final report with the per-row errors
+    @PostMapping(value = "/import", consumes = {BookFeedFormat.CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) throws IOException {
+        InputStream feed = request.getInputStream();
+        BookFeedFormat format = BookFeedFormat.of(contentType);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    ImportReportDTO report = bookImportService.importBooks(feed, format, progress -> writeLine(out, progress));
+                    writeLine(out, report);
+                });
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<BookDTO> updateBook(@PathVariable Long id, @Valid @RequestBody BookDTO bookDTO) {
         return ResponseEntity.ok(bookService.updateBook(id, bookDTO));
@@ -73,5 +189,14 @@ public class BookController {
         bookService.updateStock(id, quantity);
         return ResponseEntity.ok().build();
     }
-}
 
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
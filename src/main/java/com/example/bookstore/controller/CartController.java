@@ -0,0 +1,52 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.CartDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.service.CartService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/carts/{customerId}")
+@RequiredArgsConstructor
+public class CartController {
+
+    private final CartService cartService;
+
+    @GetMapping
+    public ResponseEntity<CartDTO> getCart(@PathVariable Long customerId) {
+        return ResponseEntity.ok(cartService.getCart(customerId));
+    }
+
+    @PostMapping("/items")
+    public ResponseEntity<CartDTO> addItem(@PathVariable Long customerId, @Valid @RequestBody OrderItemDTO item) {
+        return ResponseEntity.ok(cartService.addItem(customerId, item.getBookId(), item.getQuantity()));
+    }
+
+    @PutMapping("/items/{bookId}")
+    public ResponseEntity<CartDTO> setQuantity(@PathVariable Long customerId, @PathVariable Long bookId,
+                                               @RequestParam int quantity) {
+        return ResponseEntity.ok(cartService.setQuantity(customerId, bookId, quantity));
+    }
+
+    @DeleteMapping("/items/{bookId}")
+    public ResponseEntity<CartDTO> removeItem(@PathVariable Long customerId, @PathVariable Long bookId) {
+        return ResponseEntity.ok(cartService.removeItem(customerId, bookId));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clearCart(@PathVariable Long customerId) {
+        cartService.clearCart(customerId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderDTO> checkout(@PathVariable Long customerId,
+                                             @RequestParam(required = false) String shippingAddress) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(cartService.checkout(customerId, shippingAddress));
+    }
+}
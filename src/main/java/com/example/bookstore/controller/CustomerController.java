@@ -1,6 +1,9 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.cache.NegativeLookupCaches;
+import com.example.bookstore.dto.CacheStatsDTO;
 import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.exception.ResourceNotFoundException;
 import com.example.bookstore.service.CustomerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +19,7 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final NegativeLookupCaches negativeLookupCaches;
 
     @GetMapping
     public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
@@ -24,14 +28,25 @@ public class CustomerController {
 
     @GetMapping("/{id}")
     public ResponseEntity<CustomerDTO> getCustomerById(@PathVariable Long id) {
+        if (!negativeLookupCaches.customerIds().mightExist(id)) {
+            throw new ResourceNotFoundException("Customer not found with id: " + id);
+        }
         return ResponseEntity.ok(customerService.getCustomerById(id));
     }
 
     @GetMapping("/email/{email}")
     public ResponseEntity<CustomerDTO> getCustomerByEmail(@PathVariable String email) {
+        if (!negativeLookupCaches.emails().mightExist(email)) {
+            throw new ResourceNotFoundException("Customer not found with email: " + email);
+        }
         return ResponseEntity.ok(customerService.getCustomerByEmail(email));
     }
 
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(negativeLookupCaches.customerStats());
+    }
+
     @PostMapping
     public ResponseEntity<CustomerDTO> createCustomer(@Valid @RequestBody CustomerDTO customerDTO) {
         return ResponseEntity.status(HttpStatus.CREATED).body(customerService.createCustomer(customerDTO));
@@ -42,6 +57,11 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.updateCustomer(id, customerDTO));
     }
 
+    @PostMapping("/{id}/anonymize")
+    public ResponseEntity<CustomerDTO> anonymizeCustomer(@PathVariable Long id) {
+        return ResponseEntity.ok(customerService.anonymizeCustomer(id));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCustomer(@PathVariable Long id) {
         customerService.deleteCustomer(id);
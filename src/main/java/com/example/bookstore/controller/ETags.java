@@ -0,0 +1,48 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.repository.CollectionVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Weak entity tags built from entity versions and collection fingerprints. Controllers compare
+ * {@code If-None-Match} against a tag computed from a version lookup, so a revalidation that matches is
+ * answered with 304 before the resource is loaded or serialized. The tags are weak because one version is
+ * served in several byte-wise different representations (JSON, CBOR, Smile, each optionally gzipped), and the
+ * server only compresses responses whose tag is weak.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long id, long version) {
+        return "W/\"" + id + "-" + version + "\"";
+    }
+
+    static String of(CollectionVersion version) {
+        return "W/\"" + version.count() + "-" + Long.toHexString(version.rowHashSum()) + "\"";
+    }
+
+    // If-None-Match is "*" or a list of tags, compared weakly as RFC 9110 requires for GET
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = opaque(candidate.trim());
+            if (tag.equals("*") || tag.equals(opaque(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+}
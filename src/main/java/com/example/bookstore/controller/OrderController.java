@@ -1,14 +1,19 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.dto.BulkStatusResultDTO;
+import com.example.bookstore.dto.BulkStatusUpdateDTO;
 import com.example.bookstore.dto.OrderDTO;
 import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.service.OrderBatchService;
 import com.example.bookstore.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -17,15 +22,23 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderBatchService orderBatchService;
 
     @GetMapping
     public ResponseEntity<List<OrderDTO>> getAllOrders() {
         return ResponseEntity.ok(orderService.getAllOrders());
     }
 
+    // The tag follows the order row and the books whose titles its items show. It is read before the order,
+    // so a change in between leaves the tag behind the body, which only costs the next revalidation a 200.
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ETags.of(id, orderService.getOrderVersion(id));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).body(orderService.getOrderById(id));
     }
 
     @GetMapping("/customer/{customerId}")
@@ -43,11 +56,30 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(orderDTO));
     }
 
+    // Accept-then-process: the order is stored as PENDING and confirmed (or rejected) by the intake workers
+    @PostMapping("/async")
+    public ResponseEntity<OrderDTO> submitOrder(@Valid @RequestBody OrderDTO orderDTO) {
+        OrderDTO accepted = orderService.submitOrder(orderDTO);
+        return ResponseEntity.accepted().location(URI.create("/api/orders/" + accepted.getId())).body(accepted);
+    }
+
     @PatchMapping("/{id}/status")
     public ResponseEntity<OrderDTO> updateOrderStatus(@PathVariable Long id, @RequestParam OrderStatus status) {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, status));
     }
 
+    // Warehouse waves: thousands of orders to PROCESSING, SHIPPED or DELIVERED in one request
+    @PatchMapping("/status")
+    public ResponseEntity<BulkStatusResultDTO> updateOrderStatuses(@Valid @RequestBody BulkStatusUpdateDTO request) {
+        return ResponseEntity.ok(orderBatchService.updateStatuses(request));
+    }
+
+    // Idempotent: orders already cancelled are reported UNCHANGED and release no stock again
+    @PostMapping("/cancel")
+    public ResponseEntity<BulkStatusResultDTO> cancelOrders(@RequestBody List<Long> orderIds) {
+        return ResponseEntity.ok(orderBatchService.cancelOrders(orderIds));
+    }
+
     @DeleteMapping("/{id}/cancel")
     public ResponseEntity<Void> cancelOrder(@PathVariable Long id) {
         orderService.cancelOrder(id);
@@ -0,0 +1,60 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.BookSalesDTO;
+import com.example.bookstore.dto.CategorySalesDTO;
+import com.example.bookstore.dto.DailySalesDTO;
+import com.example.bookstore.dto.RollupRebuildDTO;
+import com.example.bookstore.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Date ranges are inclusive ISO dates; without bounds a report covers the last 30 days
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final ReportService reportService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySalesDTO>> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportService.getDailySales(from, to));
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<List<CategorySalesDTO>> getCategorySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportService.getCategorySales(from, to));
+    }
+
+    @GetMapping("/top-sellers")
+    public ResponseEntity<List<BookSalesDTO>> getTopSellers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(reportService.getTopSellers(from, to, limit));
+    }
+
+    @GetMapping("/books/{bookId}")
+    public ResponseEntity<List<DailySalesDTO>> getBookSales(
+            @PathVariable Long bookId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportService.getBookSales(bookId, from, to));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<RollupRebuildDTO> rebuildRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) throws Exception {
+        return ResponseEntity.ok(reportService.rebuildRollups(from, to));
+    }
+}
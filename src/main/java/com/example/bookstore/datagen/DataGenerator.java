@@ -0,0 +1,283 @@
+package com.example.bookstore.datagen;
+
+import com.example.bookstore.report.SalesRollup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeds a production-sized data set for load tests and benchmarks, in place of {@code DataInitializer}.
+ * Book popularity and customer activity follow Zipf distributions, and order dates are spread over a
+ * configurable history with a bias towards recent days. Rows are written with plain JDBC batches by
+ * several threads, one transaction per chunk. Ids continue after existing rows, and identity columns
+ * and sequences are moved past the generated ids afterwards. The output is deterministic for a given
+ * seed, whatever the thread count. The sales rollups are rebuilt from the generated orders at the end.
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+public class DataGenerator implements CommandLineRunner {
+
+    private static final String[] FIRST_NAMES = {"Olivia", "Liam", "Emma", "Noah", "Ava", "Mateo", "Sofia", "Arjun",
+            "Mia", "Lucas", "Amara", "Kenji", "Zara", "Elijah", "Priya", "Hugo"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Chen", "Okafor", "Muller", "Rossi", "Kowalski",
+            "Singh", "Haddad", "Silva", "Novak", "Tanaka", "Dubois", "Andersen", "Moreau", "Ivanova"};
+    private static final String[] WORDS = {"shadow", "river", "empire", "garden", "winter", "silver", "ocean",
+            "machine", "history", "secret", "journey", "kingdom", "algorithm", "stranger", "harvest", "midnight",
+            "letters", "crown", "orchard", "signal", "compass", "glass", "thunder", "archive"};
+    private static final String[] CATEGORIES = {"Fiction", "Fantasy", "Science Fiction", "Romance", "Mystery",
+            "Programming", "History", "Biography", "Children", "Poetry"};
+    private static final String[] CITIES = {"London", "Lagos", "Mumbai", "Toronto", "Berlin", "Sao Paulo", "Tokyo",
+            "Sydney", "Chicago", "Madrid"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesRollup salesRollup;
+    private final int books;
+    private final int customers;
+    private final int orders;
+    private final int maxItemsPerOrder;
+    private final double bookSkew;
+    private final double customerSkew;
+    private final int historyDays;
+    private final int chunkSize;
+    private final int threads;
+    private final long seed;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    public DataGenerator(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         SalesRollup salesRollup,
+                         @Value("${bookstore.datagen.books:1000000}") int books,
+                         @Value("${bookstore.datagen.customers:200000}") int customers,
+                         @Value("${bookstore.datagen.orders:2000000}") int orders,
+                         @Value("${bookstore.datagen.max-items-per-order:8}") int maxItemsPerOrder,
+                         @Value("${bookstore.datagen.book-skew:1.07}") double bookSkew,
+                         @Value("${bookstore.datagen.customer-skew:0.8}") double customerSkew,
+                         @Value("${bookstore.datagen.history-days:730}") int historyDays,
+                         @Value("${bookstore.datagen.chunk-size:5000}") int chunkSize,
+                         @Value("${bookstore.datagen.threads:0}") int threads,
+                         @Value("${bookstore.datagen.seed:42}") long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.salesRollup = salesRollup;
+        this.books = books;
+        this.customers = customers;
+        this.orders = orders;
+        this.maxItemsPerOrder = maxItemsPerOrder;
+        this.bookSkew = bookSkew;
+        this.customerSkew = customerSkew;
+        this.historyDays = historyDays;
+        this.chunkSize = chunkSize;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long bookBase = maxId("books");
+        long customerBase = maxId("customers");
+        long orderBase = maxId("orders");
+        long itemBase = maxId("order_items");
+        long started = System.nanoTime();
+
+        generate(bookBase, customerBase, orderBase, itemBase);
+
+        // Hand id generation back to Hibernate past everything written here (sequences are pooled by 50)
+        jdbcTemplate.execute("alter table books alter column id restart with " + (maxId("books") + 1));
+        jdbcTemplate.execute("alter table customers alter column id restart with " + (maxId("customers") + 1));
+        jdbcTemplate.execute("alter sequence orders_seq restart with " + (maxId("orders") + 51));
+        jdbcTemplate.execute("alter sequence order_items_seq restart with " + (maxId("order_items") + 51));
+
+        // Generated orders bypass the services, so the rollups are recomputed from them
+        salesRollup.rebuild(null, null);
+
+        log.info("Generated {} books, {} customers, {} orders in {} s", books, customers, orders,
+                (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    private void generate(long bookBase, long customerBase, long orderBase, long itemBase) throws Exception {
+        runPhase("books", books, (from, to, random) -> insertBooks(bookBase, from, to, random));
+        runPhase("customers", customers, (from, to, random) -> insertCustomers(customerBase, from, to, random));
+        if (books > 0 && customers > 0) {
+            ZipfSampler bookSampler = new ZipfSampler(books, bookSkew);
+            ZipfSampler customerSampler = new ZipfSampler(customers, customerSkew);
+            runPhase("orders", orders, (from, to, random) -> insertOrders(bookBase, customerBase, orderBase, itemBase,
+                    bookSampler, customerSampler, from, to, random));
+        }
+    }
+
+    private interface ChunkWriter {
+        long write(long from, long to, SplittableRandom random);
+    }
+
+    // Splits [0, total) into chunks written concurrently; each chunk draws from its own seeded stream
+    private void runPhase(String name, long total, ChunkWriter writer) throws Exception {
+        long started = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long from = 0; from < total; from += chunkSize) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(total, from + chunkSize);
+                SplittableRandom random = new SplittableRandom(seed * 31 + name.hashCode() * 1_000_003L + chunkFrom);
+                futures.add(executor.submit(() -> rows.addAndGet(
+                        transactionTemplate.execute(status -> writer.write(chunkFrom, chunkTo, random)))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} rows for {} in {} ms ({} rows/s)", rows.get(), name, Math.round(seconds * 1000),
+                Math.round(rows.get() / Math.max(seconds, 1e-9)));
+    }
+
+    private long insertBooks(long base, long from, long to, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            long id = base + 1 + i;
+            String title = capitalize(word(random)) + " of the " + capitalize(word(random)) + " " + id;
+            rows.add(new Object[]{id, title, name(random), "gen-" + id, price(id),
+                    random.nextInt(500), "A generated description of " + title,
+                    category(id), "Publisher " + random.nextInt(200),
+                    1900 + random.nextInt(126)});
+        }
+        jdbcTemplate.batchUpdate("insert into books (id, title, author, isbn, price, stock_quantity, description, " +
+                "category, publisher, publication_year) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return rows.size();
+    }
+
+    private long insertCustomers(long base, long from, long to, SplittableRandom random) {
+        List<Object[]> rows = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            long id = base + 1 + i;
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            rows.add(new Object[]{id, first, last, "customer" + id + "@example.com",
+                    "+1" + (2_000_000_000L + random.nextInt(999_999_999)), address(id),
+                    CITIES[(int) (id % CITIES.length)], "Country " + id % 40, String.format("%05d", id % 100_000),
+                    now.minusDays(historyDays).plusMinutes(random.nextInt(Math.max(1, historyDays) * 1440))});
+        }
+        jdbcTemplate.batchUpdate("insert into customers (id, first_name, last_name, email, phone, address, city, " +
+                "country, postal_code, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return rows.size();
+    }
+
+    private long insertOrders(long bookBase, long customerBase, long orderBase, long itemBase,
+                              ZipfSampler bookSampler, ZipfSampler customerSampler,
+                              long from, long to, SplittableRandom random) {
+        List<Object[]> orderRows = new ArrayList<>((int) (to - from));
+        List<Object[]> itemRows = new ArrayList<>((int) (to - from) * 3);
+        for (long i = from; i < to; i++) {
+            long orderId = orderBase + 1 + i;
+            long customerId = customerBase + permute(customerSampler.sample(random), customers);
+
+            // Recent days are busier: the age in minutes is skewed towards zero
+            long ageMinutes = (long) (historyDays * 1440L * (1 - Math.sqrt(random.nextDouble())));
+            LocalDateTime orderDate = now.minusMinutes(ageMinutes);
+            long ageDays = ageMinutes / 1440;
+            String status;
+            LocalDateTime shipped = null;
+            LocalDateTime delivered = null;
+            if (ageDays > 14) {
+                status = random.nextInt(100) < 5 ? "CANCELLED" : "DELIVERED";
+            } else if (ageDays > 3) {
+                status = "SHIPPED";
+            } else {
+                status = random.nextBoolean() ? "CONFIRMED" : "PROCESSING";
+            }
+            if (status.equals("SHIPPED") || status.equals("DELIVERED")) {
+                shipped = orderDate.plusHours(12 + random.nextInt(60));
+            }
+            if (status.equals("DELIVERED")) {
+                delivered = shipped.plusHours(24 + random.nextInt(120));
+            }
+
+            int lines = 1;
+            while (lines < maxItemsPerOrder && random.nextInt(100) < 55) {
+                lines++;
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (int line = 0; line < lines; line++) {
+                long bookId = bookBase + permute(bookSampler.sample(random), books);
+                int quantity = random.nextInt(100) < 80 ? 1 : 2 + random.nextInt(2);
+                BigDecimal price = price(bookId);
+                BigDecimal subtotal = price.multiply(BigDecimal.valueOf(quantity));
+                total = total.add(subtotal);
+                itemRows.add(new Object[]{itemBase + 1 + i * maxItemsPerOrder + line, orderId, bookId, quantity,
+                        price, subtotal, category(bookId)});
+            }
+            orderRows.add(new Object[]{orderId, customerId, total, status, orderDate, shipped, delivered,
+                    address(customerId)});
+        }
+        jdbcTemplate.batchUpdate("insert into orders (id, customer_id, total_amount, status, order_date, " +
+                "shipped_date, delivered_date, shipping_address) values (?, ?, ?, ?, ?, ?, ?, ?)", orderRows);
+        jdbcTemplate.batchUpdate("insert into order_items (id, order_id, book_id, quantity, price, subtotal, " +
+                "category) values (?, ?, ?, ?, ?, ?, ?)", itemRows);
+        return orderRows.size() + itemRows.size();
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    // Scatters Zipf ranks over the id range so that best sellers are not simply the lowest ids
+    static long permute(int rank, int n) {
+        long stride = 7_919;
+        while (gcd(stride, n) != 1) {
+            stride += 2;
+        }
+        return (rank - 1) * stride % n + 1;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    // Derived from the id so order lines can be priced without a lookup
+    private static BigDecimal price(long bookId) {
+        long mixed = (bookId * 0x9E3779B97F4A7C15L) >>> 40;
+        return BigDecimal.valueOf(499 + mixed % 5_500, 2);
+    }
+
+    // Derived from the id like the price, so order lines carry it without a lookup
+    private static String category(long bookId) {
+        long mixed = (bookId * 0xC2B2AE3D27D4EB4FL) >>> 40;
+        return CATEGORIES[(int) (mixed % CATEGORIES.length)];
+    }
+
+    private static String address(long customerId) {
+        return (customerId % 9_000 + 1) + " " + capitalize(WORDS[(int) (customerId % WORDS.length)]) + " Street";
+    }
+
+    private static String name(SplittableRandom random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static String word(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
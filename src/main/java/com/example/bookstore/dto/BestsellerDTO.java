@@ -0,0 +1,17 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestsellerDTO {
+
+    private int rank;
+    private Long bookId;
+    private String title;
+    private String author;
+    private long units;
+}
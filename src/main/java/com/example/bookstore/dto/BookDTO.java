@@ -35,4 +35,5 @@ public class BookDTO {
     private String category;
     private String publisher;
     private Integer publicationYear;
+    private Long version;
 }
@@ -0,0 +1,19 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSalesDTO {
+
+    private Long bookId;
+    private String title;
+    private String author;
+    private long units;
+    private BigDecimal revenue;
+}
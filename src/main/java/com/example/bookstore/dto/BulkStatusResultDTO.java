@@ -0,0 +1,23 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.entity.OrderStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkStatusResultDTO {
+
+    private OrderStatus status;
+    private int updated;
+    private int unchanged;
+    private int notAllowed;
+    private int notFound;
+    // Predicate matched more orders than one request may change; repeat it for the rest
+    private boolean truncated;
+    private long elapsedMillis;
+    private List<OrderStatusChangeDTO> orders = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.entity.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves either the listed orders or every order matching the predicate (current status and an optional
+ * order date range) to {@code status}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateDTO {
+
+    @NotNull(message = "Target status is required")
+    private OrderStatus status;
+
+    private List<Long> orderIds;
+
+    private OrderStatus currentStatus;
+    private LocalDateTime orderedAfter;
+    private LocalDateTime orderedBefore;
+}
@@ -0,0 +1,17 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartDTO {
+
+    private Long customerId;
+    private List<CartItemDTO> items;
+    private int totalQuantity;
+}
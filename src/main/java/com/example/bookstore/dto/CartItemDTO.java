@@ -0,0 +1,29 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemDTO {
+
+    /**
+     * A hint from cached stock, never a promise: stock is only reserved at checkout.
+     */
+    public enum Availability {
+        AVAILABLE,
+        // Cached stock is below the quantity in the cart
+        INSUFFICIENT,
+        OUT_OF_STOCK,
+        // Nothing about the book is cached
+        UNKNOWN
+    }
+
+    private Long bookId;
+    private Integer quantity;
+    private Availability availability;
+    // Stock at the time the book was cached, when it is
+    private Integer stockHint;
+}
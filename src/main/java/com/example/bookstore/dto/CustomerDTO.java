@@ -35,5 +35,6 @@ public class CustomerDTO {
     private String country;
     private String postalCode;
     private LocalDateTime createdAt;
+    private Long version;
 }
 
@@ -0,0 +1,22 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilterResultDTO {
+
+    private List<BookDTO> items;
+    private int totalHits;
+    private int page;
+    private int size;
+
+    // Per facet, the most frequent values among books matching every other facet's filter
+    private Map<String, List<FacetCountDTO>> facets;
+}
@@ -0,0 +1,16 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressDTO {
+
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long rejected;
+}
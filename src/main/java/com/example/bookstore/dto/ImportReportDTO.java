@@ -0,0 +1,27 @@
+package com.example.bookstore.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportReportDTO {
+
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    // Rows superseded by a later row with the same ISBN in the same chunk
+    private long superseded;
+    private long rejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<ImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    public ImportProgressDTO toProgress() {
+        return new ImportProgressDTO(rowsRead, inserted, updated, rejected);
+    }
+}
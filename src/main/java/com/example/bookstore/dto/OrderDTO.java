@@ -30,5 +30,6 @@ public class OrderDTO {
     private LocalDateTime shippedDate;
     private LocalDateTime deliveredDate;
     private String shippingAddress;
+    private Long version;
 }
 
@@ -0,0 +1,25 @@
+package com.example.bookstore.dto;
+
+import com.example.bookstore.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusChangeDTO {
+
+    public enum Outcome {
+        UPDATED,
+        // Already in the target status
+        UNCHANGED,
+        // Cancelled, past the target status, or still queued for intake
+        NOT_ALLOWED,
+        NOT_FOUND
+    }
+
+    private Long orderId;
+    private OrderStatus previousStatus;
+    private Outcome outcome;
+}
@@ -0,0 +1,20 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupRebuildDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+    private int days;
+    private long bookRows;
+    private long categoryRows;
+    private long elapsedMillis;
+}
@@ -0,0 +1,18 @@
+package com.example.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+
+    private List<BookDTO> items;
+    private int totalHits;
+    private int page;
+    private int size;
+}
@@ -44,5 +44,9 @@ public class Book {
 
     @Column
     private Integer publicationYear;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
 
@@ -47,9 +47,14 @@ public class Customer {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL)
+    // Deleted with the customer by the database (ON DELETE CASCADE), never through this collection
+    @OneToMany(mappedBy = "customer")
     private List<Order> orders = new ArrayList<>();
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,26 @@
+package com.example.bookstore.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable queue entry for an order accepted through the asynchronous intake. The row exists from the
+ * moment the order is accepted until a worker has reserved its stock (or rejected it).
+ */
+@Entity
+@Table(name = "order_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutbox {
+
+    @Id
+    private Long orderId;
+
+    @Column(nullable = false)
+    private LocalDateTime enqueuedAt;
+}
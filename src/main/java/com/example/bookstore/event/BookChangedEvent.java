@@ -0,0 +1,26 @@
+package com.example.bookstore.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published inside the writing transaction whenever book rows change, so that in-memory views of the
+ * catalog can invalidate or refresh the affected ids.
+ */
+public record BookChangedEvent(Set<Long> bookIds, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK
+    }
+
+    public static BookChangedEvent of(Long bookId, Type type) {
+        return new BookChangedEvent(Set.of(bookId), type);
+    }
+
+    public static BookChangedEvent of(Collection<Long> bookIds, Type type) {
+        return new BookChangedEvent(Set.copyOf(bookIds), type);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bookstore.event;
+
+import com.example.bookstore.entity.Order;
+import com.example.bookstore.entity.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Published inside the writing transaction when orders start or stop counting as sales (created, cancelled,
+ * or moved out of or back from CANCELLED). There is one line per order and book, stamped with the order time
+ * and carrying the category stored on the order line; lines are signed, so a cancellation carries negative units
+ * and revenue.
+ */
+public record SalesChangedEvent(List<Line> lines) {
+
+    public static final String UNCATEGORIZED = "Uncategorized";
+
+    public record Line(LocalDateTime orderedAt, Long bookId, String category, long units, BigDecimal revenue) {
+
+        public LocalDate date() {
+            return orderedAt.toLocalDate();
+        }
+    }
+
+    public static SalesChangedEvent booked(Order order) {
+        return of(List.of(order), 1);
+    }
+
+    public static SalesChangedEvent reversed(Collection<Order> orders) {
+        return of(orders, -1);
+    }
+
+    private static SalesChangedEvent of(Collection<Order> orders, int sign) {
+        Map<List<Long>, Line> lines = new LinkedHashMap<>();
+        for (Order order : orders) {
+            LocalDateTime orderedAt = order.getOrderDate();
+            for (OrderItem item : order.getOrderItems()) {
+                Line line = new Line(orderedAt, item.getBook().getId(), item.getCategory(), (long) sign * item.getQuantity(),
+                        sign < 0 ? item.getSubtotal().negate() : item.getSubtotal());
+                lines.merge(List.of(order.getId(), line.bookId()), line, (a, b) ->
+                        new Line(orderedAt, a.bookId(), a.category(), a.units() + b.units(), a.revenue().add(b.revenue())));
+            }
+        }
+        return new SalesChangedEvent(new ArrayList<>(lines.values()));
+    }
+}
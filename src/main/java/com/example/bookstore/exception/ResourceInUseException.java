@@ -0,0 +1,11 @@
+package com.example.bookstore.exception;
+
+/**
+ * Thrown when a resource cannot be deleted because other data still depends on it.
+ */
+public class ResourceInUseException extends RuntimeException {
+
+    public ResourceInUseException(String message) {
+        super(message);
+    }
+}
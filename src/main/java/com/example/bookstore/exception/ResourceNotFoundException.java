@@ -1,9 +1,12 @@
 package com.example.bookstore.exception;
 
+/**
+ * Thrown for lookups of ids and keys that do not exist. Callers and scrapers can produce these by the thousand
+ * and the stack trace is never looked at, so none is captured.
+ */
 public class ResourceNotFoundException extends RuntimeException {
 
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
-
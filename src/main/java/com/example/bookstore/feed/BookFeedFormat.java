@@ -0,0 +1,17 @@
+package com.example.bookstore.feed;
+
+import org.springframework.http.MediaType;
+
+public enum BookFeedFormat {
+    CSV,
+    NDJSON;
+
+    public static final String CSV_VALUE = "text/csv";
+
+    public static BookFeedFormat of(MediaType contentType) {
+        if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
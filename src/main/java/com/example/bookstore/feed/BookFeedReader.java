@@ -0,0 +1,39 @@
+package com.example.bookstore.feed;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser over a catalog feed. Only the current record is held in memory, whatever the feed size.
+ */
+public abstract class BookFeedReader implements Closeable {
+
+    protected final BufferedReader reader;
+
+    protected BookFeedReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static BookFeedReader open(InputStream in, BookFeedFormat format, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvBookFeedReader(in);
+            case NDJSON -> new NdjsonBookFeedReader(in, objectMapper);
+        };
+    }
+
+    /**
+     * Returns the next record, or {@code null} at the end of the feed.
+     */
+    public abstract FeedRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
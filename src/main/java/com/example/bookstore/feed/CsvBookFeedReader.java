@@ -0,0 +1,138 @@
+package com.example.bookstore.feed;
+
+import com.example.bookstore.dto.BookDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 style CSV: a header row naming the {@link BookDTO} fields (case and underscores are ignored),
+ * comma separated values, and double-quoted values that may contain commas, quotes ("") and newlines.
+ */
+class CsvBookFeedReader extends BookFeedReader {
+
+    private enum Column {
+        TITLE, AUTHOR, ISBN, PRICE, STOCKQUANTITY, DESCRIPTION, CATEGORY, PUBLISHER, PUBLICATIONYEAR, IGNORED
+    }
+
+    private final StringBuilder field = new StringBuilder();
+    private long lineNumber = 1;
+    private Column[] columns;
+
+    CsvBookFeedReader(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public FeedRow next() throws IOException {
+        if (columns == null) {
+            List<String> header = readRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = header.stream().map(CsvBookFeedReader::column).toArray(Column[]::new);
+        }
+
+        List<String> values;
+        long startLine;
+        do {
+            startLine = lineNumber;
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isEmpty());
+
+        if (values.size() != columns.length) {
+            return FeedRow.failed(startLine, "Expected " + columns.length + " columns but found " + values.size());
+        }
+        BookDTO book = new BookDTO();
+        for (int i = 0; i < columns.length; i++) {
+            String value = values.get(i).isBlank() ? null : values.get(i).trim();
+            try {
+                apply(book, columns[i], value);
+            } catch (NumberFormatException e) {
+                return FeedRow.failed(startLine, columns[i].name().toLowerCase(Locale.ROOT) + ": not a number: " + value);
+            }
+        }
+        return FeedRow.parsed(startLine, book);
+    }
+
+    private static void apply(BookDTO book, Column column, String value) {
+        switch (column) {
+            case TITLE -> book.setTitle(value);
+            case AUTHOR -> book.setAuthor(value);
+            case ISBN -> book.setIsbn(value);
+            case PRICE -> book.setPrice(value == null ? null : new BigDecimal(value));
+            case STOCKQUANTITY -> book.setStockQuantity(value == null ? null : Integer.valueOf(value));
+            case DESCRIPTION -> book.setDescription(value);
+            case CATEGORY -> book.setCategory(value);
+            case PUBLISHER -> book.setPublisher(value);
+            case PUBLICATIONYEAR -> book.setPublicationYear(value == null ? null : Integer.valueOf(value));
+            case IGNORED -> { }
+        }
+    }
+
+    private static Column column(String name) {
+        try {
+            return Column.valueOf(name.trim().replace("_", "").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Column.IGNORED;
+        }
+    }
+
+    // Reads one record, which may span several physical lines inside quotes; null at end of input
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(columns != null ? columns.length : 16);
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (c == -1) {
+                values.add(field.toString());
+                return values;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                lineNumber++;
+                values.add(field.toString());
+                return values;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.bookstore.feed;
+
+import com.example.bookstore.dto.BookDTO;
+
+/**
+ * One record of a catalog feed: the parsed book, or the reason the record could not be parsed.
+ * {@code line} is the line the record starts on.
+ */
+public record FeedRow(long line, BookDTO book, String error) {
+
+    static FeedRow parsed(long line, BookDTO book) {
+        return new FeedRow(line, book, null);
+    }
+
+    static FeedRow failed(long line, String error) {
+        return new FeedRow(line, null, error);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bookstore.feed;
+
+import com.example.bookstore.dto.BookDTO;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+class NdjsonBookFeedReader extends BookFeedReader {
+
+    private final ObjectMapper objectMapper;
+    private long lineNumber;
+
+    NdjsonBookFeedReader(InputStream in, ObjectMapper objectMapper) {
+        super(in);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public FeedRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            return FeedRow.parsed(lineNumber, objectMapper.readValue(line, BookDTO.class));
+        } catch (JacksonException e) {
+            return FeedRow.failed(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bookstore.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts every SQL statement Hibernate prepares, both globally and for the
+ * request currently bound to the calling thread (see {@link SqlStatementsPerRequestFilter}).
+ * Work a request hands to the application task executor, such as a streamed response body,
+ * stays bound to the request through {@link #propagate}.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<AtomicInteger> current = new ThreadLocal<>();
+    private final Counter statements;
+
+    public SqlStatementCounter(MeterRegistry registry) {
+        this.statements = Counter.builder("bookstore.sql.statements")
+                .description("SQL statements prepared by Hibernate")
+                .register(registry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        statements.increment();
+        AtomicInteger count = current.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * Wraps a task so that the statements it runs, on whichever thread, count toward the request
+     * that submitted it.
+     */
+    public Runnable propagate(Runnable task) {
+        AtomicInteger count = current.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            AtomicInteger previous = current.get();
+            current.set(count);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    current.set(previous);
+                } else {
+                    current.remove();
+                }
+            }
+        };
+    }
+
+    // Read once the request completes; async work may still add to it after end()
+    AtomicInteger begin() {
+        AtomicInteger count = new AtomicInteger();
+        current.set(count);
+        return count;
+    }
+
+    void end() {
+        current.remove();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bookstore.metrics;
+
+import com.example.bookstore.dto.BestsellerDTO;
+import com.example.bookstore.report.BestsellerLeaderboard;
+import com.example.bookstore.report.BestsellerWindow;
+import com.example.bookstore.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Publishes the stock level of the best selling books as {@code bookstore.book.stock},
+ * one series per ISBN. The books are the week's top sellers from the in-memory
+ * {@link BestsellerLeaderboard}, so a refresh only reads their rows by id. The set is
+ * recomputed on a fixed delay rather than per scrape.
+ */
+@Component
+public class TopSellerStockMetrics {
+
+    private final BestsellerLeaderboard leaderboard;
+    private final BookRepository bookRepository;
+    private final MultiGauge stock;
+    private final int topN;
+
+    public TopSellerStockMetrics(BestsellerLeaderboard leaderboard,
+                                 BookRepository bookRepository,
+                                 MeterRegistry registry,
+                                 @Value("${bookstore.metrics.top-sellers.count:20}") int topN) {
+        this.leaderboard = leaderboard;
+        this.bookRepository = bookRepository;
+        this.topN = topN;
+        this.stock = MultiGauge.builder("bookstore.book.stock")
+                .description("Stock on hand for the top selling books")
+                .baseUnit("items")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${bookstore.metrics.top-sellers.refresh:30s}",
+            fixedDelayString = "${bookstore.metrics.top-sellers.refresh:30s}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        List<Long> ids = leaderboard.top(BestsellerWindow.WEEK, topN).stream()
+                .map(BestsellerDTO::getBookId)
+                .toList();
+        stock.register(bookRepository.findAllById(ids).stream()
+                .map(book -> MultiGauge.Row.of(Tags.of("isbn", book.getIsbn()), book.getStockQuantity()))
+                .toList(), true);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.bookstore.report;
+
+import com.example.bookstore.dto.BestsellerDTO;
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.event.SalesChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Units sold per book over the last hour, day and week, kept in memory.
+ * <p>
+ * Sales are counted into one bucket per minute, covering a week. Each window also keeps a running total
+ * per book: a sale is added to the totals of every window it falls into, and when the clock moves on, the
+ * minute that leaves a window is subtracted from that window's totals. Counts follow committed
+ * {@link SalesChangedEvent}s, so cancelling an order takes its units back out of the minute it was placed in.
+ * The ranking is recomputed at most once per refresh interval and only after a change, and requests read the
+ * last published ranking without locking. The buckets are loaded from the order tables on startup.
+ */
+@Slf4j
+@Component
+public class BestsellerLeaderboard {
+
+    private static final int SPAN = BestsellerWindow.WEEK.minutes();
+    private static final BestsellerWindow[] WINDOWS = BestsellerWindow.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookRepository bookRepository;
+    private final int size;
+
+    // Guarded by this
+    private final LongCountMap[] buckets = new LongCountMap[SPAN];
+    private final long[] bucketMinutes = new long[SPAN];
+    private final LongCountMap[] totals = new LongCountMap[WINDOWS.length];
+    private long head = Long.MIN_VALUE;
+    private long version;
+    private long publishedVersion = -1;
+
+    private volatile Map<BestsellerWindow, List<BestsellerDTO>> rankings = emptyRankings();
+
+    public BestsellerLeaderboard(JdbcTemplate jdbcTemplate,
+                                 BookRepository bookRepository,
+                                 @Value("${bookstore.bestsellers.size:100}") int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("bookstore.bestsellers.size must be at least 1, was " + size);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookRepository = bookRepository;
+        this.size = size;
+        reset(Long.MIN_VALUE);
+    }
+
+    public List<BestsellerDTO> top(BestsellerWindow window, int limit) {
+        List<BestsellerDTO> ranking = rankings.get(window);
+        return ranking.subList(0, Math.max(0, Math.min(limit, ranking.size())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        long now = minuteOf(LocalDateTime.now());
+        Timestamp since = Timestamp.valueOf(LocalDateTime.ofEpochSecond((now - SPAN + 1) * 60, 0, ZoneOffset.UTC));
+        long[] rows = new long[1];
+        synchronized (this) {
+            reset(now);
+            jdbcTemplate.query("select o.order_date, i.book_id, i.quantity from orders o " +
+                    "join order_items i on i.order_id = o.id " +
+                    "where o.order_date >= ? and o.status <> 'CANCELLED'", rs -> {
+                record(minuteOf(rs.getTimestamp(1).toLocalDateTime()), rs.getLong(2), rs.getInt(3));
+                rows[0]++;
+            }, since);
+        }
+        refresh();
+        log.info("Loaded best-seller leaderboard from {} order lines in {} ms", rows[0],
+                System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onSalesChanged(SalesChangedEvent event) {
+        for (SalesChangedEvent.Line line : event.lines()) {
+            record(minuteOf(line.orderedAt()), line.bookId(), line.units());
+        }
+    }
+
+    // Titles are resolved when a ranking is published; republish when a book changes
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.Type.UPDATED || event.type() == BookChangedEvent.Type.DELETED) {
+            version++;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.bestsellers.refresh:1s}")
+    public void refresh() {
+        Map<BestsellerWindow, long[][]> tops = new EnumMap<>(BestsellerWindow.class);
+        synchronized (this) {
+            advanceTo(minuteOf(LocalDateTime.now()));
+            if (version == publishedVersion) {
+                return;
+            }
+            for (BestsellerWindow window : WINDOWS) {
+                tops.put(window, topIds(window, size));
+            }
+            publishedVersion = version;
+        }
+
+        Set<Long> ids = new HashSet<>();
+        tops.values().forEach(top -> Arrays.stream(top[0]).forEach(ids::add));
+        Map<Long, Book> books = new HashMap<>();
+        bookRepository.findAllById(ids).forEach(book -> books.put(book.getId(), book));
+
+        Map<BestsellerWindow, List<BestsellerDTO>> published = new EnumMap<>(BestsellerWindow.class);
+        tops.forEach((window, top) -> {
+            List<BestsellerDTO> ranking = new ArrayList<>(top[0].length);
+            for (int i = 0; i < top[0].length; i++) {
+                Book book = books.get(top[0][i]);
+                if (book != null) {
+                    ranking.add(new BestsellerDTO(ranking.size() + 1, book.getId(), book.getTitle(), book.getAuthor(),
+                            top[1][i]));
+                }
+            }
+            published.put(window, List.copyOf(ranking));
+        });
+        rankings = published;
+    }
+
+    /** Counts {@code units} (negative to take them back) for a sale made in the given minute. */
+    synchronized void record(long minute, long bookId, long units) {
+        if (head == Long.MIN_VALUE) {
+            reset(minute);
+        } else if (minute > head) {
+            advanceTo(minute);
+        }
+        if (minute <= head - SPAN || units == 0) {
+            return;
+        }
+        int slot = Math.floorMod(minute, SPAN);
+        if (bucketMinutes[slot] != minute) {
+            buckets[slot] = new LongCountMap();
+            bucketMinutes[slot] = minute;
+        }
+        buckets[slot].add(bookId, units);
+        for (BestsellerWindow window : WINDOWS) {
+            if (minute > head - window.minutes()) {
+                totals[window.ordinal()].add(bookId, units);
+            }
+        }
+        version++;
+    }
+
+    /** Moves the newest tracked minute forward, dropping the minutes that leave each window. */
+    synchronized void advanceTo(long minute) {
+        if (head == Long.MIN_VALUE || minute - head >= SPAN) {
+            reset(minute);
+            version++;
+            return;
+        }
+        for (long m = head + 1; m <= minute; m++) {
+            for (BestsellerWindow window : WINDOWS) {
+                long leaving = m - window.minutes();
+                int slot = Math.floorMod(leaving, SPAN);
+                if (bucketMinutes[slot] == leaving && buckets[slot].size() > 0) {
+                    totals[window.ordinal()].addAll(buckets[slot], -1);
+                    version++;
+                }
+            }
+            // The minute leaving the week shares its slot with the one entering it
+            int slot = Math.floorMod(m, SPAN);
+            buckets[slot] = null;
+            bucketMinutes[slot] = Long.MIN_VALUE;
+        }
+        head = Math.max(head, minute);
+    }
+
+    synchronized long[][] topIds(BestsellerWindow window, int k) {
+        return totals[window.ordinal()].top(k);
+    }
+
+    private void reset(long minute) {
+        Arrays.fill(buckets, null);
+        Arrays.fill(bucketMinutes, Long.MIN_VALUE);
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LongCountMap();
+        }
+        head = minute;
+    }
+
+    static long minuteOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static Map<BestsellerWindow, List<BestsellerDTO>> emptyRankings() {
+        Map<BestsellerWindow, List<BestsellerDTO>> empty = new EnumMap<>(BestsellerWindow.class);
+        for (BestsellerWindow window : WINDOWS) {
+            empty.put(window, List.of());
+        }
+        return empty;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bookstore.report;
+
+import java.util.Locale;
+
+public enum BestsellerWindow {
+
+    HOUR(60),
+    DAY(24 * 60),
+    WEEK(7 * 24 * 60);
+
+    private final int minutes;
+
+    BestsellerWindow(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public int minutes() {
+        return minutes;
+    }
+
+    public static BestsellerWindow of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown window: " + name + " (expected hour, day or week)");
+        }
+    }
+}
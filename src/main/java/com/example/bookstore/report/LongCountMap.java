@@ -0,0 +1,196 @@
+package com.example.bookstore.report;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from book id to a running count, on primitive arrays so that counting a sale
+ * allocates nothing. Entries whose count drops to zero are removed (backward-shift deletion, no tombstones).
+ * Not thread-safe.
+ */
+final class LongCountMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+
+    LongCountMap() {
+        this(16);
+    }
+
+    LongCountMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+        }
+        return 0;
+    }
+
+    void add(long key, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                if (counts[slot] == 0) {
+                    remove(slot);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** Adds every count of {@code other}, multiplied by {@code sign}. */
+    void addAll(LongCountMap other, int sign) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], sign * other.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code k} keys with the highest positive counts, highest first (ties by lower key), as
+     * parallel arrays {@code [keys, counts]}. Selection uses a bounded min-heap: O(n log k).
+     */
+    long[][] top(int k) {
+        long[] heapKeys = new long[Math.min(k, size)];
+        long[] heapCounts = new long[heapKeys.length];
+        int heapSize = 0;
+        for (int slot = 0; slot < keys.length && heapKeys.length > 0; slot++) {
+            long key = keys[slot];
+            long count = counts[slot];
+            if (key == EMPTY || count <= 0) {
+                continue;
+            }
+            if (heapSize < heapKeys.length) {
+                heapKeys[heapSize] = key;
+                heapCounts[heapSize] = count;
+                siftUp(heapKeys, heapCounts, heapSize++);
+            } else if (ranksAbove(count, key, heapCounts[0], heapKeys[0])) {
+                heapKeys[0] = key;
+                heapCounts[0] = count;
+                siftDown(heapKeys, heapCounts, heapSize);
+            }
+        }
+
+        // Drain the min-heap from the back so the result ends up highest first
+        long[] topKeys = new long[heapSize];
+        long[] topCounts = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            topKeys[i] = heapKeys[0];
+            topCounts[i] = heapCounts[0];
+            heapKeys[0] = heapKeys[i];
+            heapCounts[0] = heapCounts[i];
+            siftDown(heapKeys, heapCounts, i);
+        }
+        return new long[][]{topKeys, topCounts};
+    }
+
+    private static boolean ranksAbove(long count, long key, long otherCount, long otherKey) {
+        return count != otherCount ? count > otherCount : key < otherKey;
+    }
+
+    private static void siftUp(long[] keys, long[] counts, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksAbove(counts[parent], keys[parent], counts[i], keys[i])) {
+                break;
+            }
+            swap(keys, counts, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] keys, long[] counts, int size) {
+        int i = 0;
+        while (true) {
+            int lowest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && ranksAbove(counts[lowest], keys[lowest], counts[left], keys[left])) {
+                lowest = left;
+            }
+            if (right < size && ranksAbove(counts[lowest], keys[lowest], counts[right], keys[right])) {
+                lowest = right;
+            }
+            if (lowest == i) {
+                return;
+            }
+            swap(keys, counts, i, lowest);
+            i = lowest;
+        }
+    }
+
+    private static void swap(long[] keys, long[] counts, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+
+    private void remove(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            // Move the entry back into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                counts[gap] = counts[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
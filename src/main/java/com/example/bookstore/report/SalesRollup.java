@@ -0,0 +1,198 @@
+package com.example.bookstore.report;
+
+import com.example.bookstore.dto.RollupRebuildDTO;
+import com.example.bookstore.event.SalesChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Maintains the daily sales rollup tables. Order writes publish {@link SalesChangedEvent}s that are folded
+ * into the rollups just before their transaction commits, so a rollup row never disagrees with committed
+ * orders. {@link #rebuild} recomputes a date range from the order tables, one transaction per day, with the
+ * days spread over a thread pool.
+ */
+@Slf4j
+@Component
+public class SalesRollup {
+
+    // Orders (date, book id) and (date, category) keys
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<List<Comparable<?>>> KEY_ORDER = (a, b) -> {
+        for (int i = 0; i < a.size(); i++) {
+            int c = ((Comparable) a.get(i)).compareTo(b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    };
+
+    private enum Dialect { POSTGRESQL, MYSQL, STANDARD }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildThreads;
+    private final Dialect dialect;
+
+    public SalesRollup(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${bookstore.reports.rebuild-threads:0}") int rebuildThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        this.dialect = dialectOf(product);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        // Rows are touched in key order so concurrent orders cannot deadlock on the rollup rows
+        Map<List<Comparable<?>>, Total> byBook = new TreeMap<>(KEY_ORDER);
+        Map<List<Comparable<?>>, Total> byCategory = new TreeMap<>(KEY_ORDER);
+        for (SalesChangedEvent.Line line : event.lines()) {
+            add(byBook, List.of(line.date(), line.bookId()), line);
+            add(byCategory, List.of(line.date(), line.category()), line);
+        }
+        upsert("sales_daily_book", "book_id", "bigint", byBook);
+        upsert("sales_daily_category", "category", "varchar(255)", byCategory);
+    }
+
+    /**
+     * Recomputes the rollups for every day in {@code [from, to]}; either bound defaults to the oldest or
+     * newest order. Meant for backfills and repairs: orders written for a day while that day is being
+     * rebuilt may be counted twice or not at all.
+     */
+    public RollupRebuildDTO rebuild(LocalDate from, LocalDate to) throws Exception {
+        long started = System.currentTimeMillis();
+        Timestamp[] bounds = jdbcTemplate.queryForObject("select min(order_date), max(order_date) from orders",
+                (rs, rowNum) -> new Timestamp[]{rs.getTimestamp(1), rs.getTimestamp(2)});
+        LocalDate first = from != null ? from : bounds[0] != null ? bounds[0].toLocalDateTime().toLocalDate() : LocalDate.now();
+        LocalDate last = to != null ? to : bounds[1] != null ? bounds[1].toLocalDateTime().toLocalDate() : LocalDate.now();
+
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        long bookRows = 0;
+        long categoryRows = 0;
+        int days = 0;
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                LocalDate rebuilt = day;
+                futures.add(executor.submit(() -> transactionTemplate.execute(status -> rebuildDay(rebuilt))));
+                days++;
+            }
+            for (Future<long[]> future : futures) {
+                long[] rows = future.get();
+                bookRows += rows[0];
+                categoryRows += rows[1];
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+        log.info("Rebuilt sales rollups for {} days ({} to {}) in {} ms", days, first, last, elapsed);
+        return new RollupRebuildDTO(first, last, days, bookRows, categoryRows, elapsed);
+    }
+
+    private long[] rebuildDay(LocalDate day) {
+        Date saleDate = Date.valueOf(day);
+        Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+
+        jdbcTemplate.update("delete from sales_daily_book where sale_date = ?", saleDate);
+        jdbcTemplate.update("delete from sales_daily_category where sale_date = ?", saleDate);
+        int bookRows = jdbcTemplate.update("insert into sales_daily_book (sale_date, book_id, units, revenue) " +
+                "select ?, i.book_id, sum(i.quantity), sum(i.subtotal) from orders o " +
+                "join order_items i on i.order_id = o.id " +
+                "where o.order_date >= ? and o.order_date < ? and o.status <> 'CANCELLED' " +
+                "group by i.book_id", saleDate, start, end);
+        int categoryRows = jdbcTemplate.update("insert into sales_daily_category (sale_date, category, units, revenue) " +
+                "select ?, i.category, sum(i.quantity), sum(i.subtotal) from orders o " +
+                "join order_items i on i.order_id = o.id " +
+                "where o.order_date >= ? and o.order_date < ? and o.status <> 'CANCELLED' " +
+                "group by i.category", saleDate, start, end);
+        return new long[]{bookRows, categoryRows};
+    }
+
+    private static void add(Map<List<Comparable<?>>, Total> totals, List<Comparable<?>> key, SalesChangedEvent.Line line) {
+        Total total = totals.computeIfAbsent(key, k -> new Total());
+        total.units += line.units();
+        total.revenue = total.revenue.add(line.revenue());
+    }
+
+    /*
+     * Adds the totals to their rows, creating missing ones, with the database's atomic upsert where it has one:
+     * INSERT ... ON CONFLICT on PostgreSQL and ON DUPLICATE KEY UPDATE on MySQL, sent as one batch. Elsewhere
+     * (H2) a standard MERGE runs per row; two transactions creating the same row both take its NOT MATCHED
+     * branch, and the later one fails on the primary key once the first commits. H2 keeps the transaction
+     * usable after a failed statement, so that MERGE is simply run again and now finds the row.
+     */
+    private void upsert(String table, String keyColumn, String keyType, Map<List<Comparable<?>>, Total> totals) {
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> rows.add(new Object[]{
+                total.units, total.revenue, Date.valueOf((LocalDate) key.get(0)), key.get(1)}));
+
+        switch (dialect) {
+            case POSTGRESQL -> jdbcTemplate.batchUpdate("insert into " + table + " (units, revenue, sale_date, "
+                    + keyColumn + ") values (?, ?, ?, ?) on conflict (sale_date, " + keyColumn + ") do update set "
+                    + "units = " + table + ".units + excluded.units, revenue = " + table + ".revenue + excluded.revenue",
+                    rows);
+            case MYSQL -> jdbcTemplate.batchUpdate("insert into " + table + " (units, revenue, sale_date, "
+                    + keyColumn + ") values (?, ?, ?, ?) on duplicate key update "
+                    + "units = units + values(units), revenue = revenue + values(revenue)", rows);
+            case STANDARD -> {
+                String merge = "merge into " + table + " t using (values (cast(? as bigint), cast(? as numeric(19, 2)), "
+                        + "cast(? as date), cast(? as " + keyType + "))) s (units, revenue, sale_date, key_value) "
+                        + "on t.sale_date = s.sale_date and t." + keyColumn + " = s.key_value "
+                        + "when matched then update set units = t.units + s.units, revenue = t.revenue + s.revenue "
+                        + "when not matched then insert (sale_date, " + keyColumn + ", units, revenue) "
+                        + "values (s.sale_date, s.key_value, s.units, s.revenue)";
+                for (Object[] row : rows) {
+                    try {
+                        jdbcTemplate.update(merge, row);
+                    } catch (DuplicateKeyException e) {
+                        jdbcTemplate.update(merge, row);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Dialect dialectOf(String product) {
+        String name = product.toLowerCase(Locale.ROOT);
+        if (name.contains("postgresql")) {
+            return Dialect.POSTGRESQL;
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return Dialect.MYSQL;
+        }
+        return Dialect.STANDARD;
+    }
+
+    private static final class Total {
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+    }
+}
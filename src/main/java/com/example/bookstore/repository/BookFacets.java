@@ -0,0 +1,10 @@
+package com.example.bookstore.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns of a book that catalog filtering facets on.
+ */
+public record BookFacets(Long id, String category, String publisher, Integer publicationYear, BigDecimal price,
+                         Integer stockQuantity) {
+}
@@ -1,14 +1,25 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
     Optional<Book> findByIsbn(String isbn);
 
@@ -19,4 +30,68 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByCategory(String category);
 
     List<Book> findByStockQuantityGreaterThan(Integer quantity);
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Per row, x = (id * A + version) mod P, hashed to x² mod P; squaring keeps different rows with the same id and
+    // version totals apart. P is the largest prime whose square fits in a bigint, which also keeps the arithmetic
+    // in bigints (an int modulus would make the database compute in ints).
+    String ROW_HASH = "mod(mod(mod(b.id, 3037000493L) * 1103515245 + b.version, 3037000493L) " +
+            "* mod(mod(b.id, 3037000493L) * 1103515245 + b.version, 3037000493L), 3037000493L)";
+
+    @Query("select new com.example.bookstore.repository.CollectionVersion(count(b), coalesce(sum(" + ROW_HASH +
+            "), 0L)) from Book b where b.category = :category")
+    CollectionVersion findCollectionVersionByCategory(@Param("category") String category);
+
+    @Query("select new com.example.bookstore.repository.CollectionVersion(count(b), coalesce(sum(" + ROW_HASH +
+            "), 0L)) from Book b where b.stockQuantity > :quantity")
+    CollectionVersion findCollectionVersionByStockQuantityGreaterThan(@Param("quantity") Integer quantity);
+
+    // Scalar projection, so bulk stock updates earlier in the transaction are seen even for loaded books
+    @Query("select new com.example.bookstore.repository.BookFacets(b.id, b.category, b.publisher, " +
+            "b.publicationYear, b.price, b.stockQuantity) from Book b where b.id in :ids")
+    List<BookFacets> findFacetsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.bookstore.repository.BookFacets(b.id, b.category, b.publisher, " +
+            "b.publicationYear, b.price, b.stockQuantity) from Book b")
+    Stream<BookFacets> streamAllFacets();
+
+    @Query("select b.isbn from Book b where b.id in :ids")
+    List<String> findIsbnsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.id from Book b")
+    Stream<Long> streamAllIds();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.isbn from Book b")
+    Stream<String> streamAllIsbns();
+
+    // Keyset page: rows strictly after the given id, in id order
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Server-side cursor over the whole catalog; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAllByOrderByIdAsc();
+
+    // Row locks in id order so concurrent lockers of overlapping sets cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in :ids order by b.id")
+    List<Book> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Delete without loading; books that appear in an order stay, since their order lines refer to them
+    @Modifying
+    @Query("delete from Book b where b.id = :id and not exists (select i.id from OrderItem i where i.book.id = :id)")
+    int deleteIfNeverOrdered(@Param("id") Long id);
+
+    // Relative adjustment: affects no row when the book is missing or the stock would go negative
+    @Modifying
+    @Query("update Book b set b.stockQuantity = b.stockQuantity + :delta, b.version = b.version + 1 " +
+            "where b.id = :id and b.stockQuantity + :delta >= 0")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
 }
@@ -0,0 +1,13 @@
+package com.example.bookstore.repository;
+
+import java.util.Map;
+
+public interface BookRepositoryCustom {
+
+    /**
+     * Adds a signed delta to the stock of every given book in one UPDATE statement. A row is only
+     * changed when its resulting stock stays non-negative, so a result lower than {@code deltas.size()}
+     * means at least one book is missing or short.
+     */
+    int applyStockDeltas(Map<Long, Integer> deltas);
+}
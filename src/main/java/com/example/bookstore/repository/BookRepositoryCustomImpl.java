@@ -0,0 +1,40 @@
+package com.example.bookstore.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+@RequiredArgsConstructor
+class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public int applyStockDeltas(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder delta = new StringBuilder("case b.id");
+        for (int i = 0; i < deltas.size(); i++) {
+            delta.append(" when :id").append(i).append(" then :delta").append(i);
+        }
+        delta.append(" end");
+
+        // Rows are locked in index order by the single statement, so overlapping baskets cannot deadlock each other
+        Query query = entityManager.createQuery(
+                "update Book b set b.stockQuantity = b.stockQuantity + " + delta + ", b.version = b.version + 1" +
+                " where b.id in :ids and b.stockQuantity + " + delta + " >= 0");
+
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            query.setParameter("id" + i, entry.getKey());
+            query.setParameter("delta" + i, entry.getValue());
+            i++;
+        }
+        query.setParameter("ids", deltas.keySet());
+        return query.executeUpdate();
+    }
+}
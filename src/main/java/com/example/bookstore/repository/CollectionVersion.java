@@ -0,0 +1,8 @@
+package com.example.bookstore.repository;
+
+/**
+ * Fingerprint of a list query result: the row count and the sum of a hash of each row's id and version, so
+ * inserts, deletes and versioned updates all change it. Computed by the database, without loading the rows.
+ */
+public record CollectionVersion(long count, long rowHashSum) {
+}
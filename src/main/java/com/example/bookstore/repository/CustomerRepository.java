@@ -1,10 +1,19 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.entity.Customer;
+import com.example.bookstore.entity.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -12,5 +21,24 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByEmail(String email);
 
     boolean existsByEmail(String email);
-}
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.id from Customer c")
+    Stream<Long> streamAllIds();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.email from Customer c")
+    Stream<String> streamAllEmails();
+
+    // One statement; the database deletes the remaining orders and their items (ON DELETE CASCADE)
+    @Modifying
+    @Query("delete from Customer c where c.id = :id and not exists " +
+            "(select o.id from Order o where o.customer.id = :id and o.status in :statuses)")
+    int deleteWithoutOrdersIn(@Param("id") Long id, @Param("statuses") Collection<OrderStatus> statuses);
+
+    @Modifying
+    @Query("update Customer c set c.firstName = 'Anonymized', c.lastName = 'Customer', c.email = :email, " +
+            "c.phone = '-', c.address = '-', c.city = null, c.country = null, c.postalCode = null, " +
+            "c.version = c.version + 1 where c.id = :id")
+    int anonymize(@Param("id") Long id, @Param("email") String email);
+}
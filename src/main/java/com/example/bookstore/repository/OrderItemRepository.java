@@ -1,9 +1,13 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.entity.OrderItem;
+import com.example.bookstore.entity.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,5 +16,20 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
 
     List<OrderItem> findByBookId(Long bookId);
+
+    @Query("select distinct oi.book.id from OrderItem oi where oi.order.id in :orderIds")
+    List<Long> findBookIdsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("select new com.example.bookstore.repository.OrderLineRow(o.id, o.orderDate, oi.book.id, oi.category, " +
+            "sum(oi.quantity), sum(oi.subtotal)) from OrderItem oi join oi.order o " +
+            "where o.id in :orderIds group by o.id, o.orderDate, oi.book.id, oi.category")
+    List<OrderLineRow> findLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("select new com.example.bookstore.repository.OrderLineRow(o.id, o.orderDate, oi.book.id, oi.category, " +
+            "sum(oi.quantity), sum(oi.subtotal)) from OrderItem oi join oi.order o " +
+            "where o.customer.id = :customerId and o.status in :statuses " +
+            "group by o.id, o.orderDate, oi.book.id, oi.category")
+    List<OrderLineRow> findLinesByCustomerIdAndStatusIn(@Param("customerId") Long customerId,
+                                                        @Param("statuses") Collection<OrderStatus> statuses);
 }
 
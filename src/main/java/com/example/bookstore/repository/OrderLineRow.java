@@ -0,0 +1,19 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.event.SalesChangedEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The quantity and revenue of one book in one order, summed over its lines, with what the sales rollups
+ * key on. Read by cancellation and customer deletion instead of the orders and their items.
+ */
+public record OrderLineRow(Long orderId, LocalDateTime orderedAt, Long bookId, String category, long quantity,
+                           BigDecimal subtotal) {
+
+    // Takes the line back out of the sales figures
+    public SalesChangedEvent.Line reversal() {
+        return new SalesChangedEvent.Line(orderedAt, bookId, category, -quantity, subtotal.negate());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.OrderOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+
+    // Oldest entries of one worker partition, locked so a concurrent cancel waits for the batch to commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OrderOutbox o where mod(o.orderId, :partitions) = :partition order by o.orderId")
+    List<OrderOutbox> claimBatch(@Param("partition") int partition, @Param("partitions") int partitions, Limit limit);
+
+    // Waits for an intake worker holding any of the entries; what is left afterwards was never processed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OrderOutbox o where o.orderId in :orderIds order by o.orderId")
+    List<OrderOutbox> lockByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("select o.orderId from OrderOutbox o where o.orderId in :orderIds")
+    List<Long> findOrderIdsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query("delete from OrderOutbox o where o.orderId in :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query("delete from OrderOutbox o where o.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+}
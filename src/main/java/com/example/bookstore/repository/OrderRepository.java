@@ -2,21 +2,97 @@ package com.example.bookstore.repository;
 
 import com.example.bookstore.entity.Order;
 import com.example.bookstore.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    // Read paths that end in OrderDTO fetch items and their books in the same query to avoid N+1 selects
+
+    @Override
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.book"})
+    List<Order> findAll();
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.book"})
+    Optional<Order> findWithItemsById(Long id);
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.book"})
+    List<Order> findWithItemsByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // The order's version plus those of the books its lines show the title and author of. Versions only grow
+    // and books in orders cannot be deleted, so the total changes whenever any of them does.
+    @Query("select o.version + coalesce(sum(b.version), 0L) from Order o left join o.orderItems oi " +
+            "left join oi.book b where o.id = :id group by o.id, o.version")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
     List<Order> findByCustomerId(Long customerId);
 
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.book"})
     List<Order> findByStatus(OrderStatus status);
 
     List<Order> findByOrderDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.book"})
     List<Order> findByCustomerIdOrderByOrderDateDesc(Long customerId);
-}
 
+    @Modifying
+    @Query("update Order o set o.shippingAddress = null, o.version = o.version + 1 " +
+            "where o.customer.id = :customerId and o.shippingAddress is not null")
+    int clearShippingAddresses(@Param("customerId") Long customerId);
+
+    @Query("select new com.example.bookstore.repository.OrderStatusRow(o.id, o.status, o.orderDate) from Order o " +
+            "where o.id in :ids")
+    List<OrderStatusRow> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Row locks in id order, so the statuses read stay current until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.example.bookstore.repository.OrderStatusRow(o.id, o.status, o.orderDate) from Order o " +
+            "where o.id in :ids order by o.id")
+    List<OrderStatusRow> lockStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.example.bookstore.repository.OrderStatusRow(o.id, o.status, o.orderDate) from Order o " +
+            "where o.customer.id = :customerId and o.status in :statuses order by o.id")
+    List<OrderStatusRow> lockStatusesByCustomerIdAndStatusIn(@Param("customerId") Long customerId,
+                                                             @Param("statuses") Collection<OrderStatus> statuses);
+
+    @Query("select o.id from Order o where o.status = :status " +
+            "and (:after is null or o.orderDate >= :after) and (:before is null or o.orderDate < :before) order by o.id")
+    List<Long> findIdsByStatusAndOrderDate(@Param("status") OrderStatus status, @Param("after") LocalDateTime after,
+                                           @Param("before") LocalDateTime before, Limit limit);
+
+    // Pending orders older than the cutoff that hold stock (queued ones hold none), oldest first. Range scan
+    // of idx_orders_status_date; the partition splits the backlog between expiry workers.
+    @Query("select o.id from Order o where o.status = com.example.bookstore.entity.OrderStatus.PENDING " +
+            "and o.orderDate < :cutoff and mod(o.id, :partitions) = :partition " +
+            "and not exists (select q.orderId from OrderOutbox q where q.orderId = o.id) order by o.orderDate")
+    List<Long> findExpiredPendingIds(@Param("cutoff") LocalDateTime cutoff, @Param("partition") int partition,
+                                     @Param("partitions") int partitions, Limit limit);
+
+    @Query("select count(o) from Order o where o.status = com.example.bookstore.entity.OrderStatus.PENDING " +
+            "and o.orderDate < :cutoff and not exists (select q.orderId from OrderOutbox q where q.orderId = o.id)")
+    long countExpiredPending(@Param("cutoff") LocalDateTime cutoff);
+
+    // Guarded by the expected statuses, so a concurrent change since they were read is not overwritten.
+    // A null timestamp leaves the column as is; set ones are never overwritten.
+    @Modifying
+    @Query("update Order o set o.status = :status, o.shippedDate = coalesce(o.shippedDate, :shippedAt), " +
+            "o.deliveredDate = coalesce(o.deliveredDate, :deliveredAt), o.version = o.version + 1 " +
+            "where o.id in :ids and o.status in :from")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("from") Collection<OrderStatus> from,
+                           @Param("status") OrderStatus status, @Param("shippedAt") LocalDateTime shippedAt,
+                           @Param("deliveredAt") LocalDateTime deliveredAt);
+}
@@ -0,0 +1,11 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The id, status and placement time of an order, for batch transitions that decide per order without loading it.
+ */
+public record OrderStatusRow(Long id, OrderStatus status, LocalDateTime orderDate) {
+}
@@ -0,0 +1,431 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.FacetCountDTO;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.BookFacets;
+import com.example.bookstore.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory bitmap index over category, publisher, price band, publication year and availability.
+ * <p>
+ * Every facet value maps to a compressed bitmap of the ids of the books that have it. A filter ORs the
+ * selected values within a facet and ANDs the facets; the count of a facet value is taken against the books
+ * matching every <em>other</em> facet's filter, so a selection still shows what choosing a sibling value would
+ * yield. Each facet also keeps the value code of every book, so a facet is counted in one pass over the
+ * matching ids rather than one bitmap intersection per value, which matters for publishers and years.
+ * <p>
+ * Like {@link CatalogSearchIndex}, the index is built on startup and then follows {@link BookChangedEvent}s,
+ * including stock changes, reading the changed rows inside the writing transaction and applying them once it
+ * commits. A rebuild fills fresh bitmaps next to the live ones and swaps them in; changes applied while it
+ * runs go to the live bitmaps and are replayed onto the new ones, in the order they arrived, after the swap.
+ */
+@Slf4j
+@Component
+public class CatalogFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String PUBLISHER = "publisher";
+    public static final String PRICE_BAND = "priceBand";
+    public static final String YEAR = "year";
+    public static final String IN_STOCK = "inStock";
+
+    private static final List<String> FACETS = List.of(CATEGORY, PUBLISHER, PRICE_BAND, YEAR, IN_STOCK);
+
+    private final BookRepository bookRepository;
+    private final BigDecimal[] bandBounds;
+    private final List<String> bandLabels = new ArrayList<>();
+    private final int maxFacetValues;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RoaringBitmap all = new RoaringBitmap();
+    private Map<String, Facet> facets = emptyFacets();
+    // Non-null while a rebuild runs: the changes to replay onto the rebuilt bitmaps
+    private List<Change> pendingDuringRebuild;
+
+    public CatalogFacetIndex(BookRepository bookRepository,
+                             @Value("${bookstore.facets.price-bands:10,20,30,50}") BigDecimal[] bandBounds,
+                             @Value("${bookstore.facets.max-values:20}") int maxFacetValues) {
+        this.bookRepository = bookRepository;
+        this.bandBounds = bandBounds;
+        this.maxFacetValues = maxFacetValues;
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : bandBounds) {
+            bandLabels.add(plain(lower) + "-" + plain(upper));
+            lower = upper;
+        }
+        bandLabels.add(plain(lower) + "+");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        RoaringBitmap books = new RoaringBitmap();
+        Map<String, Facet> values = emptyFacets();
+        try (Stream<BookFacets> rows = bookRepository.streamAllFacets()) {
+            Iterator<BookFacets> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                add(books, values, iterator.next());
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pendingDuringRebuild) {
+                apply(books, values, change);
+            }
+            pendingDuringRebuild = null;
+            books.runOptimize();
+            values.values().forEach(Facet::runOptimize);
+            all = books;
+            facets = values;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog facet index built for {} books in {} ms", size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        Map<Long, BookFacets> rows = bookRepository.findFacetsByIdIn(event.bookIds()).stream()
+                .collect(Collectors.toMap(BookFacets::id, Function.identity()));
+        Set<Long> ids = event.bookIds();
+        boolean stockOnly = event.type() == BookChangedEvent.Type.STOCK;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(ids, rows, stockOnly);
+                }
+            });
+        } else {
+            apply(ids, rows, stockOnly);
+        }
+    }
+
+    public void index(BookFacets row) {
+        apply(Set.of(row.id()), Map.of(row.id(), row), false);
+    }
+
+    public void remove(Long bookId) {
+        apply(Set.of(bookId), Map.of(), false);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the book had stock as of its last indexed change, or empty for books not in the index. Answered
+     * from memory, for callers that only want a hint.
+     */
+    public Optional<Boolean> inStock(Long bookId) {
+        if (bookId < 0 || bookId > Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            int key = key(bookId);
+            if (!all.contains(key)) {
+                return Optional.empty();
+            }
+            RoaringBitmap inStock = facets.get(IN_STOCK).books(Boolean.TRUE.toString());
+            return Optional.of(inStock != null && inStock.contains(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the price band label a price falls into, as used by {@link FacetQuery#priceBands()}. */
+    public String priceBand(BigDecimal price) {
+        int band = 0;
+        while (band < bandBounds.length && price.compareTo(bandBounds[band]) >= 0) {
+            band++;
+        }
+        return bandLabels.get(band);
+    }
+
+    public FacetHits filter(FacetQuery query, int offset, int limit) {
+        for (String band : nullToEmpty(query.priceBands())) {
+            if (!bandLabels.contains(band)) {
+                throw new IllegalArgumentException("Unknown price band '" + band + "', expected one of " + bandLabels);
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            // One bitmap per facet with a selection, null for facets left open
+            Map<String, RoaringBitmap> selections = new HashMap<>();
+            selections.put(CATEGORY, union(CATEGORY, query.categories()));
+            selections.put(PUBLISHER, union(PUBLISHER, query.publishers()));
+            selections.put(PRICE_BAND, union(PRICE_BAND, query.priceBands()));
+            selections.put(YEAR, yearRange(query.yearFrom(), query.yearTo()));
+            selections.put(IN_STOCK, query.inStock() == null ? null : union(IN_STOCK, Set.of(query.inStock().toString())));
+
+            RoaringBitmap matches = intersect(selections, null);
+            int total = matches.getCardinality();
+            List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, total - offset)));
+            if (offset >= 0 && offset < total) {
+                PeekableIntIterator ids = matches.getIntIterator();
+                ids.advanceIfNeeded(matches.select(offset));
+                while (ids.hasNext() && page.size() < limit) {
+                    page.add(Integer.toUnsignedLong(ids.next()));
+                }
+            }
+
+            Map<String, List<FacetCountDTO>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS) {
+                RoaringBitmap base = intersect(selections, facet);
+                Facet values = facets.get(facet);
+                int[] valueCounts = values.count(base, base == all);
+                List<FacetCountDTO> facetCounts = new ArrayList<>();
+                for (int code = 0; code < valueCounts.length; code++) {
+                    if (valueCounts[code] > 0) {
+                        facetCounts.add(new FacetCountDTO(values.value(code), valueCounts[code]));
+                    }
+                }
+                facetCounts.sort(Comparator.comparingInt(FacetCountDTO::getCount).reversed()
+                        .thenComparing(FacetCountDTO::getValue));
+                counts.put(facet, List.copyOf(facetCounts.subList(0, Math.min(maxFacetValues, facetCounts.size()))));
+            }
+            return new FacetHits(page, total, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Set<Long> ids, Map<Long, BookFacets> rows, boolean stockOnly) {
+        Change change = new Change(ids, rows, stockOnly);
+        lock.writeLock().lock();
+        try {
+            apply(all, facets, change);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(RoaringBitmap books, Map<String, Facet> values, Change change) {
+        for (Long id : change.ids()) {
+            BookFacets row = change.rows().get(id);
+            if (change.stockOnly()) {
+                if (row != null) {
+                    values.get(IN_STOCK).set(key(id), inStock(row));
+                }
+                continue;
+            }
+            books.remove(key(id));
+            values.values().forEach(facet -> facet.clear(key(id)));
+            if (row != null) {
+                add(books, values, row);
+            }
+        }
+    }
+
+    private void add(RoaringBitmap books, Map<String, Facet> values, BookFacets row) {
+        int key = key(row.id());
+        books.add(key);
+        values.get(CATEGORY).set(key, row.category());
+        values.get(PUBLISHER).set(key, row.publisher());
+        values.get(PRICE_BAND).set(key, row.price() != null ? priceBand(row.price()) : null);
+        values.get(YEAR).set(key, row.publicationYear() != null ? row.publicationYear().toString() : null);
+        values.get(IN_STOCK).set(key, inStock(row));
+    }
+
+    private RoaringBitmap union(String facet, Set<String> selected) {
+        if (selected == null || selected.isEmpty()) {
+            return null;
+        }
+        Facet values = facets.get(facet);
+        return FastAggregation.or(selected.stream()
+                .map(values::books)
+                .filter(Objects::nonNull)
+                .iterator());
+    }
+
+    private RoaringBitmap yearRange(Integer from, Integer to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        Facet years = facets.get(YEAR);
+        return FastAggregation.or(years.values().stream()
+                .filter(value -> {
+                    int year = Integer.parseInt(value);
+                    return (from == null || year >= from) && (to == null || year <= to);
+                })
+                .map(years::books)
+                .iterator());
+    }
+
+    // Intersection of all selections except the one of the given facet (none excluded when null), smallest first
+    private RoaringBitmap intersect(Map<String, RoaringBitmap> selections, String excluded) {
+        List<RoaringBitmap> applied = selections.entrySet().stream()
+                .filter(selection -> selection.getValue() != null && !selection.getKey().equals(excluded))
+                .map(Map.Entry::getValue)
+                .sorted(Comparator.comparingInt(RoaringBitmap::getCardinality))
+                .toList();
+        if (applied.isEmpty()) {
+            return all;
+        }
+        RoaringBitmap result = applied.get(0);
+        for (int i = 1; i < applied.size(); i++) {
+            result = RoaringBitmap.and(result, applied.get(i));
+        }
+        return result;
+    }
+
+    private static String inStock(BookFacets row) {
+        return Boolean.toString(row.stockQuantity() != null && row.stockQuantity() > 0);
+    }
+
+    private static int key(Long bookId) {
+        return Math.toIntExact(bookId);
+    }
+
+    private static Set<String> nullToEmpty(Set<String> values) {
+        return values != null ? values : Set.of();
+    }
+
+    private static String plain(BigDecimal value) {
+        return value.stripTrailingZeros().toPlainString();
+    }
+
+    private static Map<String, Facet> emptyFacets() {
+        Map<String, Facet> facets = new HashMap<>();
+        FACETS.forEach(facet -> facets.put(facet, new Facet()));
+        return facets;
+    }
+
+    // The changed books and their rows after the change; books without a row were deleted
+    private record Change(Set<Long> ids, Map<Long, BookFacets> rows, boolean stockOnly) {
+    }
+
+    /**
+     * Values of one facet, each with a dense code, the bitmap of its books and, per book id, the code of the
+     * value the book has. Codes are never reused; a value whose books are all gone keeps an empty bitmap and
+     * is simply not counted.
+     */
+    private static final class Facet {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<RoaringBitmap> books = new ArrayList<>();
+        // code + 1 per book id, 0 for books without a value
+        private int[] bookValues = new int[0];
+
+        void set(int key, String value) {
+            clear(key);
+            if (value == null) {
+                return;
+            }
+            int code = codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                books.add(new RoaringBitmap());
+                return values.size() - 1;
+            });
+            books.get(code).add(key);
+            if (key >= bookValues.length) {
+                bookValues = Arrays.copyOf(bookValues, Math.max(key + 1, bookValues.length * 2));
+            }
+            bookValues[key] = code + 1;
+        }
+
+        void clear(int key) {
+            if (key < bookValues.length && bookValues[key] != 0) {
+                books.get(bookValues[key] - 1).remove(key);
+                bookValues[key] = 0;
+            }
+        }
+
+        RoaringBitmap books(String value) {
+            Integer code = codes.get(value);
+            return code != null ? books.get(code) : null;
+        }
+
+        List<String> values() {
+            return values;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        // Books per value code among the given ones; when they are the whole catalog that is each value's size
+        int[] count(RoaringBitmap base, boolean wholeCatalog) {
+            int[] counts = new int[values.size()];
+            if (wholeCatalog) {
+                for (int code = 0; code < counts.length; code++) {
+                    counts[code] = books.get(code).getCardinality();
+                }
+            } else {
+                int[] codes = bookValues;
+                base.forEach((IntConsumer) key -> {
+                    int code = key < codes.length ? codes[key] : 0;
+                    if (code != 0) {
+                        counts[code - 1]++;
+                    }
+                });
+            }
+            return counts;
+        }
+
+        void runOptimize() {
+            books.forEach(RoaringBitmap::runOptimize);
+        }
+    }
+}
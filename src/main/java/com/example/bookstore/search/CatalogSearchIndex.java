@@ -0,0 +1,288 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over title, author, description, category and publisher.
+ * <p>
+ * Terms are kept sorted so every query token also matches as a prefix. All tokens must match; a book
+ * scores the sum over tokens of field weight x idf, with prefix matches counting half of an exact one.
+ * The index is built on startup and then follows {@link BookChangedEvent}s: changed books are read inside
+ * the writing transaction (no second connection) and applied to the index only once that transaction commits.
+ * After-commit updates of two transactions can arrive in either order, so an update older than the indexed
+ * version of its book is dropped; deleted books keep a tombstone version until the next rebuild.
+ * <p>
+ * A rebuild fills fresh maps next to the live ones and swaps them in. Updates applied while it runs go to the
+ * live maps and are replayed onto the new ones after the swap, where the version check discards those the
+ * rebuild had already read.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float PUBLISHER_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 0.5f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings live = new Postings();
+    // Non-null while a rebuild runs: the updates to replay onto the rebuilt maps
+    private List<Map<Long, BookTerms>> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings rebuilt = new Postings();
+        try {
+            try (Stream<Book> books = bookRepository.streamAllByOrderByIdAsc()) {
+                Iterator<Book> iterator = books.iterator();
+                while (iterator.hasNext()) {
+                    Book book = iterator.next();
+                    rebuilt.apply(book.getId(), terms(book));
+                    entityManager.detach(book);
+                }
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Map<Long, BookTerms> updates : pendingDuringRebuild) {
+                updates.forEach(rebuilt::apply);
+            }
+            pendingDuringRebuild = null;
+            live = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog search index built for {} books in {} ms", size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.Type.STOCK) {
+            return;
+        }
+        Map<Long, Book> books = bookRepository.findAllById(event.bookIds()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        Map<Long, BookTerms> updates = new HashMap<>();
+        for (Long id : event.bookIds()) {
+            Book book = books.get(id);
+            updates.put(id, book != null ? terms(book) : new BookTerms(DELETED, null));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(updates);
+                }
+            });
+        } else {
+            apply(updates);
+        }
+    }
+
+    public void index(Book book) {
+        apply(Map.of(book.getId(), terms(book)));
+    }
+
+    public void remove(Long bookId) {
+        apply(Map.of(bookId, new BookTerms(DELETED, null)));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.termsByBook.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, int offset, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return SearchHits.empty();
+        }
+
+        Map<Long, Float> scores = null;
+        lock.readLock().lock();
+        try {
+            Postings postings = live;
+            int documents = postings.termsByBook.size();
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Float>> entry : postings.postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+                    float factor = entry.getKey().equals(token) ? 1.0f : PREFIX_MATCH_FACTOR;
+                    float idf = (float) Math.log(1.0 + (double) documents / entry.getValue().size());
+                    entry.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * idf * factor, Math::max));
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return SearchHits.empty();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> page = ranked.stream()
+                .skip(Math.max(offset, 0))
+                .limit(Math.max(limit, 0))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        return new SearchHits(page, ranked.size());
+    }
+
+    private void apply(Map<Long, BookTerms> updates) {
+        lock.writeLock().lock();
+        try {
+            updates.forEach(live::apply);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(updates);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static BookTerms terms(Book book) {
+        return new BookTerms(book.getVersion() != null ? book.getVersion() : 0L, termWeights(book));
+    }
+
+    private static Map<String, Float> termWeights(Book book) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, book.getTitle(), TITLE_WEIGHT);
+        addField(weights, book.getAuthor(), AUTHOR_WEIGHT);
+        addField(weights, book.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, book.getPublisher(), PUBLISHER_WEIGHT);
+        addField(weights, book.getDescription(), DESCRIPTION_WEIGHT);
+        return weights;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    // Weights are null for a deleted book
+    private record BookTerms(long version, Map<String, Float> weights) {
+    }
+
+    // Guarded by the index lock once published as the live maps
+    private static final class Postings {
+
+        private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        private final Map<Long, Set<String>> termsByBook = new HashMap<>();
+        private final Map<Long, Long> versions = new HashMap<>();
+
+        void apply(Long bookId, BookTerms terms) {
+            Long indexed = versions.get(bookId);
+            if (indexed != null && indexed > terms.version()) {
+                return;
+            }
+            versions.put(bookId, terms.version());
+            removeTerms(bookId);
+            if (terms.weights() != null) {
+                terms.weights().forEach((term, weight) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(bookId, weight));
+                termsByBook.put(bookId, terms.weights().keySet());
+            }
+        }
+
+        private void removeTerms(Long bookId) {
+            Set<String> terms = termsByBook.remove(bookId);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Map<Long, Float> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(bookId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+}
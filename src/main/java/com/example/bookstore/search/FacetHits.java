@@ -0,0 +1,12 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.FacetCountDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of matching book ids in id order, the number of matching books, and the facet counts.
+ */
+public record FacetHits(List<Long> bookIds, int total, Map<String, List<FacetCountDTO>> facets) {
+}
@@ -0,0 +1,11 @@
+package com.example.bookstore.search;
+
+import java.util.Set;
+
+/**
+ * Catalog filter: a book matches when, for every facet with a non-empty selection, its value is one of the
+ * selected ones. Publication years are selected as an inclusive range, either end of which may be open.
+ */
+public record FacetQuery(Set<String> categories, Set<String> publishers, Set<String> priceBands,
+                         Integer yearFrom, Integer yearTo, Boolean inStock) {
+}
@@ -0,0 +1,13 @@
+package com.example.bookstore.search;
+
+import java.util.List;
+
+/**
+ * One page of book ids in relevance order, plus the total number of matching books.
+ */
+public record SearchHits(List<Long> bookIds, int total) {
+
+    public static SearchHits empty() {
+        return new SearchHits(List.of(), 0);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.ImportErrorDTO;
+import com.example.bookstore.dto.ImportProgressDTO;
+import com.example.bookstore.dto.ImportReportDTO;
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.feed.BookFeedFormat;
+import com.example.bookstore.feed.BookFeedReader;
+import com.example.bookstore.feed.FeedRow;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a CSV or NDJSON catalog feed into the books table. Rows are validated against the
+ * {@link BookDTO} constraints and written in chunks: one query finds which ISBNs of a chunk already
+ * exist, then new and existing books go out as two JDBC batches in the chunk's own transaction.
+ * Memory is bounded by the chunk size and the error report cap, not by the feed size.
+ */
+@Slf4j
+@Service
+@Timed("bookstore.service")
+public class BookImportService {
+
+    private static final String INSERT_SQL = "insert into books (title, author, isbn, price, stock_quantity, " +
+            "description, category, publisher, publication_year) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "update books set title = ?, author = ?, isbn = ?, price = ?, " +
+            "stock_quantity = ?, description = ?, category = ?, publisher = ?, publication_year = ?, " +
+            "version = version + 1 where id = ?";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public BookImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             Validator validator,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             @Value("${bookstore.import.chunk-size:1000}") int chunkSize,
+                             @Value("${bookstore.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports the feed, calling {@code progress} after every committed chunk. Books are matched on ISBN:
+     * unknown ISBNs are inserted and known ones overwritten. A chunk that fails to write is rolled back
+     * and its rows are reported as rejected; the import carries on with the next chunk.
+     */
+    public ImportReportDTO importBooks(InputStream in, BookFeedFormat format, Consumer<ImportProgressDTO> progress)
+            throws IOException {
+        long started = System.nanoTime();
+        ImportReportDTO report = new ImportReportDTO();
+        Map<String, FeedRow> chunk = new LinkedHashMap<>();
+
+        try (BookFeedReader reader = BookFeedReader.open(in, format, objectMapper)) {
+            FeedRow row;
+            while ((row = reader.next()) != null) {
+                report.setRowsRead(report.getRowsRead() + 1);
+                String error = row.error() != null ? row.error() : validate(row.book());
+                if (error != null) {
+                    reject(report, row.line(), row.book() != null ? row.book().getIsbn() : null, error);
+                    continue;
+                }
+                if (chunk.put(row.book().getIsbn(), row) != null) {
+                    report.setSuperseded(report.getSuperseded() + 1);
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk.values(), report);
+                    chunk.clear();
+                    progress.accept(report.toProgress());
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk.values(), report);
+            progress.accept(report.toProgress());
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        report.setElapsedMillis(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getRowsRead() * 1e9 / elapsedNanos);
+        log.info("Imported {} rows: {} inserted, {} updated, {} rejected in {} ms",
+                report.getRowsRead(), report.getInserted(), report.getUpdated(), report.getRejected(),
+                report.getElapsedMillis());
+        return report;
+    }
+
+    private String validate(BookDTO book) {
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(book);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void writeChunk(Collection<FeedRow> rows, ImportReportDTO report) {
+        try {
+            int[] written = transactionTemplate.execute(status -> upsert(rows));
+            report.setInserted(report.getInserted() + written[0]);
+            report.setUpdated(report.getUpdated() + written[1]);
+        } catch (DataAccessException e) {
+            String message = "Chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (FeedRow row : rows) {
+                reject(report, row.line(), row.book().getIsbn(), message);
+            }
+        }
+    }
+
+    private int[] upsert(Collection<FeedRow> rows) {
+        Map<String, Object> isbns = Map.of("isbns", rows.stream().map(row -> row.book().getIsbn()).toList());
+        Map<String, Long> existing = new HashMap<>();
+        jdbcTemplate.query("select id, isbn from books where isbn in (:isbns)", isbns,
+                rs -> {
+                    existing.put(rs.getString("isbn"), rs.getLong("id"));
+                });
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<String> insertedIsbns = new ArrayList<>();
+        for (FeedRow row : rows) {
+            BookDTO book = row.book();
+            Object[] columns = {book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPrice(),
+                    book.getStockQuantity(), book.getDescription(), book.getCategory(), book.getPublisher(),
+                    book.getPublicationYear()};
+            Long id = existing.get(book.getIsbn());
+            if (id == null) {
+                inserts.add(columns);
+                insertedIsbns.add(book.getIsbn());
+            } else {
+                Object[] withId = Arrays.copyOf(columns, columns.length + 1);
+                withId[columns.length] = id;
+                updates.add(withId);
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, inserts);
+            List<Long> createdIds = jdbcTemplate.queryForList("select id from books where isbn in (:isbns)",
+                    Map.of("isbns", insertedIsbns), Long.class);
+            eventPublisher.publishEvent(BookChangedEvent.of(createdIds, BookChangedEvent.Type.CREATED));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_SQL, updates);
+            eventPublisher.publishEvent(BookChangedEvent.of(existing.values(), BookChangedEvent.Type.UPDATED));
+        }
+        return new int[]{inserts.size(), updates.size()};
+    }
+
+    private void reject(ImportReportDTO report, long line, String isbn, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportErrorDTO(line, isbn, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+}
@@ -1,66 +1,191 @@
 package com.example.bookstore.service;
 
+import com.example.bookstore.cache.BookCache;
+import com.example.bookstore.cache.NegativeLookupCaches;
 import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CursorPageDTO;
+import com.example.bookstore.dto.FilterResultDTO;
+import com.example.bookstore.dto.SearchResultDTO;
 import com.example.bookstore.entity.Book;
+import com.example.bookstore.event.BookChangedEvent;
 import com.example.bookstore.exception.DuplicateResourceException;
+import com.example.bookstore.exception.ResourceInUseException;
 import com.example.bookstore.exception.ResourceNotFoundException;
 import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CollectionVersion;
+import com.example.bookstore.search.CatalogFacetIndex;
+import com.example.bookstore.search.CatalogSearchIndex;
+import com.example.bookstore.search.FacetHits;
+import com.example.bookstore.search.FacetQuery;
+import com.example.bookstore.search.SearchHits;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("bookstore.service")
 @RequiredArgsConstructor
 @Transactional
 public class BookService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final BookRepository bookRepository;
+    private final StockReservationService stockReservationService;
+    private final BookCache bookCache;
+    private final NegativeLookupCaches negativeLookupCaches;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final CatalogFacetIndex catalogFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
-    public List<BookDTO> getAllBooks() {
-        return bookRepository.findAll().stream()
-                .map(this::convertToDTO)
+    @Transactional(readOnly = true)
+    public CursorPageDTO<BookDTO> getBooksPage(Long after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<BookDTO> items = bookRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(pageSize))
+                .stream()
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
+
+        Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream out) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                out.write(objectMapper.writeValueAsBytes(convertToDTO(book)));
+                out.write('\n');
+                // Keep the persistence context from growing with the catalog
+                entityManager.detach(book);
+            }
+        }
+        out.flush();
     }
 
+    // Version of the book as getBookById returns it, found without building the DTO
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getBookVersion(Long id) {
+        return bookCache.peekVersion(id)
+                .or(() -> negativeLookupCaches.bookIds()
+                        .lookup(id, k -> onPrimary(() -> bookRepository.findVersionById(k))))
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+    }
+
+    // Hits and keys known to be missing are answered without a transaction or a connection; cache fills run
+    // on the primary, so an evicted entry is never reloaded from a lagging replica
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookDTO getBookById(Long id) {
-        Book book = bookRepository.findById(id)
+        return bookCache.getById(id, key -> negativeLookupCaches.bookIds()
+                        .lookup(key, k -> onPrimary(() -> bookRepository.findById(k).map(BookService::convertToDTO))))
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
-        return convertToDTO(book);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookDTO getBookByIsbn(String isbn) {
-        Book book = bookRepository.findByIsbn(isbn)
+        return bookCache.getByIsbn(isbn, key -> negativeLookupCaches.isbns()
+                        .lookup(key, k -> onPrimary(() -> bookRepository.findByIsbn(k).map(BookService::convertToDTO))))
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + isbn));
-        return convertToDTO(book);
     }
 
+    // A read-write transaction, which the routing data source keeps on the primary; joins the caller's if any
+    private <T> Optional<T> onPrimary(Supplier<Optional<T>> query) {
+        return transactionTemplate.execute(status -> query.get());
+    }
+
+    @Transactional(readOnly = true)
+    public SearchResultDTO searchBooks(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        SearchHits hits = catalogSearchIndex.search(query, offset, pageSize);
+        return new SearchResultDTO(findAllInOrder(hits.bookIds()), hits.total(), pageNumber, pageSize);
+    }
+
+    // Facets are counted in memory; the page of books is the only query
+    @Transactional(readOnly = true)
+    public FilterResultDTO filterBooks(FacetQuery query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        FacetHits hits = catalogFacetIndex.filter(query, offset, pageSize);
+        return new FilterResultDTO(findAllInOrder(hits.bookIds()), hits.total(), pageNumber, pageSize, hits.facets());
+    }
+
+    // One query for the whole page, then restore the order of the ids
+    private List<BookDTO> findAllInOrder(List<Long> ids) {
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(BookService::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
     public List<BookDTO> searchBooksByTitle(String title) {
         return bookRepository.findByTitleContainingIgnoreCase(title).stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookDTO> searchBooksByAuthor(String author) {
         return bookRepository.findByAuthorContainingIgnoreCase(author).stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookDTO> getBooksByCategory(String category) {
         return bookRepository.findByCategory(category).stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CollectionVersion getBooksByCategoryVersion(String category) {
+        return bookRepository.findCollectionVersionByCategory(category);
+    }
+
+    @Transactional(readOnly = true)
     public List<BookDTO> getAvailableBooks() {
         return bookRepository.findByStockQuantityGreaterThan(0).stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CollectionVersion getAvailableBooksVersion() {
+        return bookRepository.findCollectionVersionByStockQuantityGreaterThan(0);
+    }
+
     public BookDTO createBook(BookDTO bookDTO) {
         if (bookRepository.findByIsbn(bookDTO.getIsbn()).isPresent()) {
             throw new DuplicateResourceException("Book with ISBN " + bookDTO.getIsbn() + " already exists");
@@ -68,6 +193,7 @@ public class BookService {
 
         Book book = convertToEntity(bookDTO);
         Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.of(savedBook.getId(), BookChangedEvent.Type.CREATED));
         return convertToDTO(savedBook);
     }
 
@@ -92,24 +218,26 @@ public class BookService {
         existingBook.setPublicationYear(bookDTO.getPublicationYear());
 
         Book updatedBook = bookRepository.save(existingBook);
+        eventPublisher.publishEvent(BookChangedEvent.of(id, BookChangedEvent.Type.UPDATED));
         return convertToDTO(updatedBook);
     }
 
     public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Book not found with id: " + id);
+        if (bookRepository.deleteIfNeverOrdered(id) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Book not found with id: " + id);
+            }
+            throw new ResourceInUseException("Book " + id + " appears in orders and cannot be deleted");
         }
-        bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.of(id, BookChangedEvent.Type.DELETED));
     }
 
     public void updateStock(Long id, Integer quantity) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
-        book.setStockQuantity(book.getStockQuantity() + quantity);
-        bookRepository.save(book);
+        stockReservationService.adjust(id, quantity);
     }
 
-    private BookDTO convertToDTO(Book book) {
+    // Package-private and stateless so the mapper benchmarks can call it directly
+    static BookDTO convertToDTO(Book book) {
         BookDTO dto = new BookDTO();
         dto.setId(book.getId());
         dto.setTitle(book.getTitle());
@@ -121,6 +249,7 @@ public class BookService {
         dto.setCategory(book.getCategory());
         dto.setPublisher(book.getPublisher());
         dto.setPublicationYear(book.getPublicationYear());
+        dto.setVersion(book.getVersion());
         return dto;
     }
 
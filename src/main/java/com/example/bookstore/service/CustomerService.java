@@ -1,38 +1,65 @@
 package com.example.bookstore.service;
 
+import com.example.bookstore.cache.NegativeLookupCaches;
 import com.example.bookstore.dto.CustomerDTO;
 import com.example.bookstore.entity.Customer;
+import com.example.bookstore.entity.OrderStatus;
 import com.example.bookstore.exception.DuplicateResourceException;
+import com.example.bookstore.exception.ResourceInUseException;
 import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.event.SalesChangedEvent;
 import com.example.bookstore.repository.CustomerRepository;
+import com.example.bookstore.repository.OrderItemRepository;
+import com.example.bookstore.repository.OrderLineRow;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.OrderStatusRow;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("bookstore.service")
 @RequiredArgsConstructor
 @Transactional
 public class CustomerService {
 
+    private static final Set<OrderStatus> OPEN_ORDER_STATUSES = EnumSet.of(
+            OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+
+    // Every order but a cancelled one counts in the sales rollups and the leaderboard
+    private static final Set<OrderStatus> COUNTED_ORDER_STATUSES =
+            EnumSet.complementOf(EnumSet.of(OrderStatus.CANCELLED));
+
     private final CustomerRepository customerRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final NegativeLookupCaches negativeLookupCaches;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public List<CustomerDTO> getAllCustomers() {
         return customerRepository.findAll().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public CustomerDTO getCustomerById(Long id) {
-        Customer customer = customerRepository.findById(id)
+        Customer customer = negativeLookupCaches.customerIds().lookup(id, customerRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + id));
         return convertToDTO(customer);
     }
 
+    @Transactional(readOnly = true)
     public CustomerDTO getCustomerByEmail(String email) {
-        Customer customer = customerRepository.findByEmail(email)
+        Customer customer = negativeLookupCaches.emails().lookup(email, customerRepository::findByEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found with email: " + email));
         return convertToDTO(customer);
     }
@@ -44,6 +71,7 @@ public class CustomerService {
 
         Customer customer = convertToEntity(customerDTO);
         Customer savedCustomer = customerRepository.save(customer);
+        negativeLookupCaches.customerSaved(savedCustomer.getId(), savedCustomer.getEmail());
         return convertToDTO(savedCustomer);
     }
 
@@ -67,14 +95,53 @@ public class CustomerService {
         existingCustomer.setPostalCode(customerDTO.getPostalCode());
 
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        negativeLookupCaches.customerSaved(updatedCustomer.getId(), updatedCustomer.getEmail());
         return convertToDTO(updatedCustomer);
     }
 
+    /**
+     * Deletes the customer with all of their orders, which the database removes in the same statement. Orders
+     * still in progress hold stock, so a customer with any is refused. Delivered orders are taken back out of
+     * the sales figures from one read of their lines, whatever the amount of history; see
+     * {@link #anonymizeCustomer} to keep the orders instead.
+     */
     public void deleteCustomer(Long id) {
-        if (!customerRepository.existsById(id)) {
+        // Locked, so that no counted order is cancelled or delivered between the read of its lines and the delete
+        List<OrderStatusRow> counted = orderRepository.lockStatusesByCustomerIdAndStatusIn(id, COUNTED_ORDER_STATUSES);
+        if (counted.stream().anyMatch(order -> OPEN_ORDER_STATUSES.contains(order.status()))) {
+            throw inProgress(id);
+        }
+        List<OrderLineRow> sold = counted.isEmpty()
+                ? List.of()
+                : orderItemRepository.findLinesByCustomerIdAndStatusIn(id, COUNTED_ORDER_STATUSES);
+        // Still guarded: an order placed since the lock is not among the locked ones
+        if (customerRepository.deleteWithoutOrdersIn(id, OPEN_ORDER_STATUSES) == 0) {
+            if (!customerRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Customer not found with id: " + id);
+            }
+            throw inProgress(id);
+        }
+        if (!sold.isEmpty()) {
+            eventPublisher.publishEvent(new SalesChangedEvent(sold.stream().map(OrderLineRow::reversal).toList()));
+        }
+    }
+
+    private static ResourceInUseException inProgress(Long id) {
+        return new ResourceInUseException("Customer " + id + " has orders in progress; cancel or complete them first");
+    }
+
+    /**
+     * Replaces the customer's personal data with placeholders and drops the shipping addresses of their
+     * orders, keeping the orders themselves for the sales history. Two statements, however many orders.
+     */
+    public CustomerDTO anonymizeCustomer(Long id) {
+        String email = "anonymized-" + id + "@invalid";
+        if (customerRepository.anonymize(id, email) == 0) {
             throw new ResourceNotFoundException("Customer not found with id: " + id);
         }
-        customerRepository.deleteById(id);
+        orderRepository.clearShippingAddresses(id);
+        negativeLookupCaches.customerSaved(id, email);
+        return getCustomerById(id);
     }
 
     private CustomerDTO convertToDTO(Customer customer) {
@@ -89,6 +156,7 @@ public class CustomerService {
         dto.setCountry(customer.getCountry());
         dto.setPostalCode(customer.getPostalCode());
         dto.setCreatedAt(customer.getCreatedAt());
+        dto.setVersion(customer.getVersion());
         return dto;
     }
 
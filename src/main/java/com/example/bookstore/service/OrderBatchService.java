@@ -0,0 +1,288 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BulkStatusResultDTO;
+import com.example.bookstore.dto.BulkStatusUpdateDTO;
+import com.example.bookstore.dto.OrderStatusChangeDTO;
+import com.example.bookstore.dto.OrderStatusChangeDTO.Outcome;
+import com.example.bookstore.entity.OrderOutbox;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.event.SalesChangedEvent;
+import com.example.bookstore.repository.OrderItemRepository;
+import com.example.bookstore.repository.OrderLineRow;
+import com.example.bookstore.repository.OrderOutboxRepository;
+import com.example.bookstore.repository.OrderRepository;
+import com.example.bookstore.repository.OrderStatusRow;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Changes many orders at once with set-based statements instead of loading each order. Per chunk of ids,
+ * one query reads their statuses and one update, guarded by the statuses it expects, moves the eligible
+ * ones; order items are never read.
+ */
+@Service
+@Timed("bookstore.service")
+@Transactional
+public class OrderBatchService {
+
+    private static final Set<OrderStatus> CANCELLABLE = EnumSet.of(
+            OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+
+    private final OrderRepository orderRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final StockReservationService stockReservationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxOrders;
+
+    public OrderBatchService(OrderRepository orderRepository,
+                             OrderOutboxRepository orderOutboxRepository,
+                             OrderItemRepository orderItemRepository,
+                             StockReservationService stockReservationService,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${bookstore.orders.bulk.chunk-size:1000}") int chunkSize,
+                             @Value("${bookstore.orders.bulk.max-orders:10000}") int maxOrders) {
+        this.orderRepository = orderRepository;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.stockReservationService = stockReservationService;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * Moves the requested orders forward to the target status, which must be CONFIRMED, PROCESSING, SHIPPED
+     * or DELIVERED. An order qualifies if its status comes before the target; cancelled orders and orders
+     * still queued for intake (which hold no stock yet) are left alone. Shipped and delivered dates are set
+     * by the same rules as {@link OrderService#updateOrderStatus}: once, on reaching that status.
+     */
+    public BulkStatusResultDTO updateStatuses(BulkStatusUpdateDTO request) {
+        long started = System.nanoTime();
+        OrderStatus target = request.getStatus();
+        if (target == OrderStatus.PENDING || target == OrderStatus.CANCELLED) {
+            throw new IllegalArgumentException("Bulk transitions only move orders forward to CONFIRMED, "
+                    + "PROCESSING, SHIPPED or DELIVERED; cancel orders through the cancellation endpoints");
+        }
+
+        BulkStatusResultDTO result = new BulkStatusResultDTO();
+        result.setStatus(target);
+        List<Long> orderIds = selectOrders(request, result);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime shippedAt = target == OrderStatus.SHIPPED ? now : null;
+        LocalDateTime deliveredAt = target == OrderStatus.DELIVERED ? now : null;
+
+        Set<OrderStatus> sources = EnumSet.range(OrderStatus.PENDING, OrderStatus.values()[target.ordinal() - 1]);
+
+        for (List<Long> chunk : chunks(orderIds)) {
+            Map<Long, OrderStatus> current = statuses(chunk);
+            // Outbox entries are only written with the order, so a pending order seen unqueued stays unqueued
+            Set<Long> queued = current.containsValue(OrderStatus.PENDING)
+                    ? new HashSet<>(orderOutboxRepository.findOrderIdsByOrderIdIn(chunk))
+                    : Set.of();
+
+            Map<Long, OrderStatusChangeDTO> changes = new LinkedHashMap<>();
+            List<Long> eligible = new ArrayList<>();
+            for (Long id : chunk) {
+                OrderStatus previous = current.get(id);
+                Outcome outcome;
+                if (previous == null) {
+                    outcome = Outcome.NOT_FOUND;
+                } else if (previous == target) {
+                    outcome = Outcome.UNCHANGED;
+                } else if (!sources.contains(previous) || queued.contains(id)) {
+                    outcome = Outcome.NOT_ALLOWED;
+                } else {
+                    outcome = Outcome.UPDATED;
+                    eligible.add(id);
+                }
+                changes.put(id, new OrderStatusChangeDTO(id, previous, outcome));
+            }
+
+            if (!eligible.isEmpty()
+                    && orderRepository.updateStatusByIdIn(eligible, sources, target, shippedAt, deliveredAt) < eligible.size()) {
+                // Some orders moved between the read and the guarded update; report where they are now
+                Map<Long, OrderStatus> after = statuses(eligible);
+                for (Long id : eligible) {
+                    OrderStatus status = after.get(id);
+                    if (status != target) {
+                        changes.put(id, new OrderStatusChangeDTO(id, status,
+                                status == null ? Outcome.NOT_FOUND : Outcome.NOT_ALLOWED));
+                    }
+                }
+            }
+            changes.values().forEach(change -> record(result, change));
+        }
+        result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Cancels the given orders and gives their stock back with one aggregated update for the whole batch.
+     * Each order is locked and moved to CANCELLED only if it was still open, so cancelling again, or racing
+     * another cancellation, changes nothing: already cancelled orders come back UNCHANGED, delivered ones
+     * NOT_ALLOWED. Orders still queued for intake are dequeued and release nothing, since they hold no stock.
+     * <p>
+     * Locks are taken in the order the intake workers take them: outbox entries for the whole batch first,
+     * then order rows in id order, then the books.
+     */
+    public BulkStatusResultDTO cancelOrders(Collection<Long> orderIds) {
+        return cancel(orderIds, CANCELLABLE, null);
+    }
+
+    /**
+     * Cancels those of the given orders that are still PENDING and were placed before the cutoff, as
+     * {@link #cancelOrders} does. For the expiry job, whose scan may be stale: orders confirmed or shipped
+     * since, and orders still queued for intake, are left alone and come back NOT_ALLOWED.
+     */
+    public BulkStatusResultDTO expireOrders(Collection<Long> orderIds, LocalDateTime placedBefore) {
+        return cancel(orderIds, EnumSet.of(OrderStatus.PENDING), placedBefore);
+    }
+
+    // Cancels the orders in one of the given statuses, placed before the cutoff if there is one. Expiry
+    // (with a cutoff) leaves queued orders to the intake workers instead of dequeuing them.
+    private BulkStatusResultDTO cancel(Collection<Long> orderIds, Set<OrderStatus> from, LocalDateTime placedBefore) {
+        long started = System.nanoTime();
+        if (orderIds == null || orderIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Order ids must not be null");
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(orderIds));
+        if (ids.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " orders can be cancelled per request");
+        }
+        BulkStatusResultDTO result = new BulkStatusResultDTO();
+        result.setStatus(OrderStatus.CANCELLED);
+
+        Set<Long> queued = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            List<Long> locked = orderOutboxRepository.lockByOrderIdIn(chunk).stream()
+                    .map(OrderOutbox::getOrderId)
+                    .toList();
+            if (!locked.isEmpty() && placedBefore == null) {
+                orderOutboxRepository.deleteByOrderIdIn(locked);
+            }
+            queued.addAll(locked);
+        }
+
+        Map<Long, Integer> released = new HashMap<>();
+        List<SalesChangedEvent.Line> reversed = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            Map<Long, OrderStatus> current = new HashMap<>();
+            Set<Long> tooRecent = new HashSet<>();
+            for (OrderStatusRow row : orderRepository.lockStatusesByIdIn(chunk)) {
+                current.put(row.id(), row.status());
+                if (placedBefore != null && !row.orderDate().isBefore(placedBefore)) {
+                    tooRecent.add(row.id());
+                }
+            }
+            List<Long> cancelled = new ArrayList<>();
+            for (Long id : chunk) {
+                OrderStatus previous = current.get(id);
+                Outcome outcome;
+                if (previous == null) {
+                    outcome = Outcome.NOT_FOUND;
+                } else if (previous == OrderStatus.CANCELLED) {
+                    outcome = Outcome.UNCHANGED;
+                } else if (!from.contains(previous) || tooRecent.contains(id)
+                        || (placedBefore != null && queued.contains(id))) {
+                    outcome = Outcome.NOT_ALLOWED;
+                } else {
+                    outcome = Outcome.UPDATED;
+                    cancelled.add(id);
+                }
+                record(result, new OrderStatusChangeDTO(id, previous, outcome));
+            }
+            if (cancelled.isEmpty()) {
+                continue;
+            }
+
+            orderRepository.updateStatusByIdIn(cancelled, from, OrderStatus.CANCELLED, null, null);
+            for (OrderLineRow line : orderItemRepository.findLinesByOrderIdIn(cancelled)) {
+                if (!queued.contains(line.orderId())) {
+                    released.merge(line.bookId(), Math.toIntExact(line.quantity()), Integer::sum);
+                }
+                // Submitted orders count as sales on arrival, queued or not
+                reversed.add(line.reversal());
+            }
+        }
+
+        if (!released.isEmpty()) {
+            stockReservationService.releaseAll(released);
+        }
+        if (!reversed.isEmpty()) {
+            eventPublisher.publishEvent(new SalesChangedEvent(reversed));
+        }
+        result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    // The listed ids without repeats, or the ids matching the predicate up to the per-request limit
+    private List<Long> selectOrders(BulkStatusUpdateDTO request, BulkStatusResultDTO result) {
+        if (request.getOrderIds() != null) {
+            if (request.getOrderIds().stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("Order ids must not be null");
+            }
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getOrderIds()));
+            if (ids.size() > maxOrders) {
+                throw new IllegalArgumentException("At most " + maxOrders + " orders can be changed per request");
+            }
+            return ids;
+        }
+        if (request.getCurrentStatus() == null) {
+            throw new IllegalArgumentException("Either orderIds or currentStatus is required");
+        }
+        List<Long> ids = orderRepository.findIdsByStatusAndOrderDate(request.getCurrentStatus(),
+                request.getOrderedAfter(), request.getOrderedBefore(), Limit.of(maxOrders + 1));
+        if (ids.size() > maxOrders) {
+            result.setTruncated(true);
+            return ids.subList(0, maxOrders);
+        }
+        return ids;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    private Map<Long, OrderStatus> statuses(List<Long> ids) {
+        Map<Long, OrderStatus> statuses = new HashMap<>();
+        for (OrderStatusRow row : orderRepository.findStatusesByIdIn(ids)) {
+            statuses.put(row.id(), row.status());
+        }
+        return statuses;
+    }
+
+    private static void record(BulkStatusResultDTO result, OrderStatusChangeDTO change) {
+        switch (change.getOutcome()) {
+            case UPDATED -> result.setUpdated(result.getUpdated() + 1);
+            case UNCHANGED -> result.setUnchanged(result.getUnchanged() + 1);
+            case NOT_ALLOWED -> result.setNotAllowed(result.getNotAllowed() + 1);
+            case NOT_FOUND -> result.setNotFound(result.getNotFound() + 1);
+        }
+        result.getOrders().add(change);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.entity.Order;
+import com.example.bookstore.entity.OrderItem;
+import com.example.bookstore.entity.OrderOutbox;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.event.SalesChangedEvent;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.OrderItemRepository;
+import com.example.bookstore.repository.OrderOutboxRepository;
+import com.example.bookstore.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the order outbox filled by {@link OrderService#submitOrder}. Each batch locks the books it
+ * touches once, admits orders first-come first-served against the locked stock, and reserves the
+ * combined quantity of every admitted order with a single update, so a hot book is written once per
+ * batch rather than once per order.
+ */
+@Slf4j
+@Service
+@Timed("bookstore.service")
+@RequiredArgsConstructor
+@Transactional
+public class OrderIntakeService {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final BookRepository bookRepository;
+    private final StockReservationService stockReservationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Processes up to {@code batchSize} queued orders whose id falls into the given partition and returns
+     * how many outbox entries were consumed.
+     */
+    public int processBatch(int partition, int partitions, int batchSize) {
+        List<Long> orderIds = orderOutboxRepository.claimBatch(partition, partitions, Limit.of(batchSize)).stream()
+                .map(OrderOutbox::getOrderId)
+                .toList();
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        // Lock before the orders pull the books into the persistence context, so the stock read is current
+        Map<Long, Integer> available = new HashMap<>();
+        for (Book book : bookRepository.lockAllById(orderItemRepository.findBookIdsByOrderIdIn(orderIds))) {
+            available.put(book.getId(), book.getStockQuantity());
+        }
+
+        Map<Long, Integer> reserved = new LinkedHashMap<>();
+        List<Order> rejected = new ArrayList<>();
+        for (Order order : orderRepository.findWithItemsByIdInOrderByIdAsc(orderIds)) {
+            if (order.getStatus() != OrderStatus.PENDING) {
+                continue;
+            }
+            Map<Long, Integer> wanted = new LinkedHashMap<>();
+            for (OrderItem item : order.getOrderItems()) {
+                wanted.merge(item.getBook().getId(), item.getQuantity(), Integer::sum);
+            }
+            if (wanted.entrySet().stream().allMatch(e -> available.get(e.getKey()) >= e.getValue())) {
+                wanted.forEach((bookId, quantity) -> {
+                    available.merge(bookId, -quantity, Integer::sum);
+                    reserved.merge(bookId, quantity, Integer::sum);
+                });
+                order.setStatus(OrderStatus.CONFIRMED);
+            } else {
+                order.setStatus(OrderStatus.CANCELLED);
+                rejected.add(order);
+            }
+        }
+
+        if (!reserved.isEmpty()) {
+            stockReservationService.reserveAll(reserved);
+        }
+        orderOutboxRepository.deleteByOrderIdIn(orderIds);
+
+        // Submitted orders were counted as sales on arrival
+        if (!rejected.isEmpty()) {
+            eventPublisher.publishEvent(SalesChangedEvent.reversed(rejected));
+            log.info("Order intake rejected {} of {} orders for insufficient stock", rejected.size(), orderIds.size());
+        }
+        return orderIds.size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bookstore.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed pool of threads draining the order outbox. Each worker owns one partition of the order ids, so
+ * workers never compete for the same queue entries.
+ */
+@Slf4j
+@Component
+public class OrderIntakeWorkers implements SmartLifecycle {
+
+    private final OrderIntakeService orderIntakeService;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    public OrderIntakeWorkers(OrderIntakeService orderIntakeService,
+                              @Value("${bookstore.orders.intake.workers:2}") int workers,
+                              @Value("${bookstore.orders.intake.batch-size:200}") int batchSize,
+                              @Value("${bookstore.orders.intake.poll-interval:50ms}") Duration pollInterval) {
+        this.orderIntakeService = orderIntakeService;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void start() {
+        if (workers <= 0) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int partition = 0; partition < workers; partition++) {
+            int owned = partition;
+            executor.execute(() -> drain(owned));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drain(int partition) {
+        while (running) {
+            try {
+                if (orderIntakeService.processBatch(partition, workers, batchSize) < batchSize) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // The batch rolled back and stays queued; retry after a pause
+                log.warn("Order intake batch failed in partition {}", partition, e);
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -2,22 +2,31 @@ package com.example.bookstore.service;
 
 import com.example.bookstore.dto.OrderDTO;
 import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.dto.OrderStatusChangeDTO;
 import com.example.bookstore.entity.*;
+import com.example.bookstore.event.SalesChangedEvent;
 import com.example.bookstore.exception.InsufficientStockException;
 import com.example.bookstore.exception.ResourceNotFoundException;
 import com.example.bookstore.repository.BookRepository;
 import com.example.bookstore.repository.CustomerRepository;
+import com.example.bookstore.repository.OrderOutboxRepository;
 import com.example.bookstore.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("bookstore.service")
 @RequiredArgsConstructor
 @Transactional
 public class OrderService {
@@ -25,32 +34,73 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final BookRepository bookRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final StockReservationService stockReservationService;
+    private final OrderBatchService orderBatchService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getAllOrders() {
         return orderRepository.findAll().stream()
-                .map(this::convertToDTO)
+                .map(OrderService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public OrderDTO getOrderById(Long id) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findWithItemsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
         return convertToDTO(order);
     }
 
+    // Version of the order as getOrderById returns it, books included
+    @Transactional(readOnly = true)
+    public long getOrderVersion(Long id) {
+        return orderRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+    }
+
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByCustomerId(Long customerId) {
         return orderRepository.findByCustomerIdOrderByOrderDateDesc(customerId).stream()
-                .map(this::convertToDTO)
+                .map(OrderService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByStatus(OrderStatus status) {
         return orderRepository.findByStatus(status).stream()
-                .map(this::convertToDTO)
+                .map(OrderService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     public OrderDTO createOrder(OrderDTO orderDTO) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Order order = buildOrder(orderDTO, quantities);
+
+        // Reserve stock for the whole basket in a single statement
+        stockReservationService.reserveAll(quantities);
+
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(SalesChangedEvent.booked(savedOrder));
+        return convertToDTO(savedOrder);
+    }
+
+    /**
+     * Accepts an order without touching stock: the order is stored as PENDING together with an outbox
+     * entry, and {@link OrderIntakeService} later confirms or rejects it. Only the customer, the books and
+     * a fail-fast stock check are validated here.
+     */
+    public OrderDTO submitOrder(OrderDTO orderDTO) {
+        Order order = buildOrder(orderDTO, new LinkedHashMap<>());
+        Order savedOrder = orderRepository.save(order);
+        orderOutboxRepository.save(new OrderOutbox(savedOrder.getId(), LocalDateTime.now()));
+        eventPublisher.publishEvent(SalesChangedEvent.booked(savedOrder));
+        return convertToDTO(savedOrder);
+    }
+
+    // Validates and prices the basket; fills in the total quantity requested per book
+    private Order buildOrder(OrderDTO orderDTO, Map<Long, Integer> quantities) {
         // Validate customer
         Customer customer = customerRepository.findById(orderDTO.getCustomerId())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + orderDTO.getCustomerId()));
@@ -61,17 +111,27 @@ public class OrderService {
         order.setShippingAddress(orderDTO.getShippingAddress() != null ?
                 orderDTO.getShippingAddress() : customer.getAddress());
 
+        // Total the requested quantity per book and load every referenced book in one round-trip
+        for (OrderItemDTO itemDTO : orderDTO.getItems()) {
+            quantities.merge(itemDTO.getBookId(), itemDTO.getQuantity(), Integer::sum);
+        }
+        Map<Long, Book> books = bookRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
         BigDecimal totalAmount = BigDecimal.ZERO;
 
         // Process order items
         for (OrderItemDTO itemDTO : orderDTO.getItems()) {
-            Book book = bookRepository.findById(itemDTO.getBookId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + itemDTO.getBookId()));
+            Book book = books.get(itemDTO.getBookId());
+            if (book == null) {
+                throw new ResourceNotFoundException("Book not found with id: " + itemDTO.getBookId());
+            }
 
-            // Check stock availability
-            if (book.getStockQuantity() < itemDTO.getQuantity()) {
+            // Fail fast on the loaded state; the reservation is the authoritative check
+            int requested = quantities.get(book.getId());
+            if (book.getStockQuantity() < requested) {
                 throw new InsufficientStockException("Insufficient stock for book: " + book.getTitle() +
-                        ". Available: " + book.getStockQuantity() + ", Requested: " + itemDTO.getQuantity());
+                        ". Available: " + book.getStockQuantity() + ", Requested: " + requested);
             }
 
             // Create order item
@@ -80,24 +140,33 @@ public class OrderService {
             orderItem.setQuantity(itemDTO.getQuantity());
             orderItem.setPrice(book.getPrice());
             orderItem.setSubtotal(book.getPrice().multiply(BigDecimal.valueOf(itemDTO.getQuantity())));
+            orderItem.setCategory(book.getCategory() != null ? book.getCategory() : SalesChangedEvent.UNCATEGORIZED);
 
             order.addOrderItem(orderItem);
             totalAmount = totalAmount.add(orderItem.getSubtotal());
-
-            // Update book stock
-            book.setStockQuantity(book.getStockQuantity() - itemDTO.getQuantity());
-            bookRepository.save(book);
         }
 
         order.setTotalAmount(totalAmount);
-        Order savedOrder = orderRepository.save(order);
-        return convertToDTO(savedOrder);
+        return order;
     }
 
     public OrderDTO updateOrderStatus(Long id, OrderStatus status) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findWithItemsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
 
+        // A queued order holds no stock until intake confirms it, which skips orders that moved on meanwhile.
+        // Outbox entries are only written with the order, so one seen unqueued stays unqueued.
+        if (order.getStatus() == OrderStatus.PENDING && orderOutboxRepository.existsById(id)) {
+            throw new IllegalStateException("Order " + id + " is still queued for intake");
+        }
+
+        // Cancelling releases stock and reverses the sales, and a cancelled order has neither to take back
+        if (status == OrderStatus.CANCELLED) {
+            throw new IllegalArgumentException("Cancel orders through the cancellation endpoints");
+        }
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new IllegalStateException("Order " + id + " is cancelled and cannot be reopened");
+        }
         order.setStatus(status);
 
         if (status == OrderStatus.SHIPPED && order.getShippedDate() == null) {
@@ -110,26 +179,22 @@ public class OrderService {
         return convertToDTO(updatedOrder);
     }
 
+    /**
+     * Cancels one order through {@link OrderBatchService#cancelOrders}. Cancelling an order that is already
+     * cancelled is a no-op.
+     */
     public void cancelOrder(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
-
-        if (order.getStatus() == OrderStatus.DELIVERED) {
-            throw new IllegalStateException("Cannot cancel a delivered order");
+        OrderStatusChangeDTO change = orderBatchService.cancelOrders(List.of(id)).getOrders().get(0);
+        if (change.getOutcome() == OrderStatusChangeDTO.Outcome.NOT_FOUND) {
+            throw new ResourceNotFoundException("Order not found with id: " + id);
         }
-
-        // Restore book stock
-        for (OrderItem item : order.getOrderItems()) {
-            Book book = item.getBook();
-            book.setStockQuantity(book.getStockQuantity() + item.getQuantity());
-            bookRepository.save(book);
+        if (change.getOutcome() == OrderStatusChangeDTO.Outcome.NOT_ALLOWED) {
+            throw new IllegalStateException("Cannot cancel a delivered order");
         }
-
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
     }
 
-    private OrderDTO convertToDTO(Order order) {
+    // Package-private and stateless so the mapper benchmarks can call it directly
+    static OrderDTO convertToDTO(Order order) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setCustomerId(order.getCustomer().getId());
@@ -139,16 +204,17 @@ public class OrderService {
         dto.setShippedDate(order.getShippedDate());
         dto.setDeliveredDate(order.getDeliveredDate());
         dto.setShippingAddress(order.getShippingAddress());
+        dto.setVersion(order.getVersion());
 
         List<OrderItemDTO> itemDTOs = order.getOrderItems().stream()
-                .map(this::convertItemToDTO)
+                .map(OrderService::convertItemToDTO)
                 .collect(Collectors.toList());
         dto.setItems(itemDTOs);
 
         return dto;
     }
 
-    private OrderItemDTO convertItemToDTO(OrderItem item) {
+    private static OrderItemDTO convertItemToDTO(OrderItem item) {
         OrderItemDTO dto = new OrderItemDTO();
         dto.setId(item.getId());
         dto.setBookId(item.getBook().getId());
@@ -0,0 +1,139 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancels orders left PENDING for longer than the configured ttl, so the stock they reserved goes back on
+ * sale. Each run splits the expired orders into partitions by id, one per worker, and each worker cancels
+ * its partition oldest first in chunks through {@link OrderBatchService#expireOrders}: one transaction per
+ * chunk, so book rows are only locked for the length of one aggregated stock update. Orders still queued
+ * for intake hold no stock and are left to the intake workers; orders that moved on after the scan are
+ * left as they are.
+ * <p>
+ * Publishes {@code bookstore.orders.expired} (orders cancelled), {@code bookstore.orders.expiry.chunk}
+ * (time per chunk) and {@code bookstore.orders.expiry.backlog} (expired orders left after the last run).
+ */
+@Slf4j
+@Component
+public class PendingOrderExpiry implements AutoCloseable {
+
+    private final OrderRepository orderRepository;
+    private final OrderBatchService orderBatchService;
+    private final Duration ttl;
+    private final int chunkSize;
+    private final int workers;
+    private final ExecutorService executor;
+    private final Counter expired;
+    private final Timer chunkTimer;
+    private final AtomicLong backlog = new AtomicLong();
+
+    public PendingOrderExpiry(OrderRepository orderRepository,
+                              OrderBatchService orderBatchService,
+                              MeterRegistry registry,
+                              @Value("${bookstore.orders.expiry.ttl:30m}") Duration ttl,
+                              @Value("${bookstore.orders.expiry.chunk-size:200}") int chunkSize,
+                              @Value("${bookstore.orders.expiry.workers:1}") int workers) {
+        this.orderRepository = orderRepository;
+        this.orderBatchService = orderBatchService;
+        this.ttl = ttl;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = workers <= 0 ? null : Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-expiry-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expired = Counter.builder("bookstore.orders.expired")
+                .description("Pending orders cancelled after the expiry ttl")
+                .baseUnit("orders")
+                .register(registry);
+        this.chunkTimer = Timer.builder("bookstore.orders.expiry.chunk")
+                .description("Time to cancel one chunk of expired orders")
+                .register(registry);
+        Gauge.builder("bookstore.orders.expiry.backlog", backlog, AtomicLong::get)
+                .description("Expired pending orders not cancelled yet")
+                .baseUnit("orders")
+                .register(registry);
+    }
+
+    /**
+     * Cancels every order that was pending at the start of the run for longer than the ttl and returns how
+     * many were cancelled. Does nothing with {@code bookstore.orders.expiry.workers=0}.
+     */
+    @Scheduled(initialDelayString = "${bookstore.orders.expiry.interval:1m}",
+            fixedDelayString = "${bookstore.orders.expiry.interval:1m}")
+    public long expireStaleOrders() {
+        if (executor == null) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        List<Callable<Long>> partitions = new ArrayList<>();
+        for (int partition = 0; partition < workers; partition++) {
+            int owned = partition;
+            partitions.add(() -> expirePartition(cutoff, owned));
+        }
+
+        long cancelled = 0;
+        try {
+            for (Future<Long> partition : executor.invokeAll(partitions)) {
+                cancelled += partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Chunks cancelled before the failure stay cancelled; the rest is picked up by the next run
+            log.warn("Expiring pending orders failed", e.getCause());
+        }
+        backlog.set(orderRepository.countExpiredPending(cutoff));
+        if (cancelled > 0) {
+            log.info("Cancelled {} pending orders older than {}", cancelled, ttl);
+        }
+        return cancelled;
+    }
+
+    private long expirePartition(LocalDateTime cutoff, int partition) {
+        long cancelled = 0;
+        while (true) {
+            List<Long> orderIds = orderRepository.findExpiredPendingIds(cutoff, partition, workers, Limit.of(chunkSize));
+            if (orderIds.isEmpty()) {
+                return cancelled;
+            }
+            int updated = chunkTimer.record(() -> orderBatchService.expireOrders(orderIds, cutoff).getUpdated());
+            expired.increment(updated);
+            cancelled += updated;
+            // Nothing left to cancel in what the scan returned: it reads a replica that has not caught up yet
+            if (orderIds.size() < chunkSize || updated == 0) {
+                return cancelled;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
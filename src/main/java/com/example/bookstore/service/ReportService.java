@@ -0,0 +1,82 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookSalesDTO;
+import com.example.bookstore.dto.CategorySalesDTO;
+import com.example.bookstore.dto.DailySalesDTO;
+import com.example.bookstore.dto.RollupRebuildDTO;
+import com.example.bookstore.report.SalesRollup;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sales reports answered from the daily rollup tables, so their cost depends on the number of days and
+ * titles sold in the range, not on the size of the order tables.
+ */
+@Service
+@Timed("bookstore.service")
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ReportService {
+
+    public static final int DEFAULT_RANGE_DAYS = 30;
+    public static final int MAX_TOP_SELLERS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SalesRollup salesRollup;
+
+    public List<DailySalesDTO> getDailySales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("select sale_date, sum(units), sum(revenue) from sales_daily_category " +
+                        "where sale_date between ? and ? group by sale_date order by sale_date",
+                (rs, rowNum) -> new DailySalesDTO(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getBigDecimal(3)),
+                start(from, to), end(to));
+    }
+
+    public List<CategorySalesDTO> getCategorySales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("select category, sum(units), sum(revenue) from sales_daily_category " +
+                        "where sale_date between ? and ? group by category order by sum(revenue) desc",
+                (rs, rowNum) -> new CategorySalesDTO(rs.getString(1), rs.getLong(2), rs.getBigDecimal(3)),
+                start(from, to), end(to));
+    }
+
+    public List<BookSalesDTO> getTopSellers(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query("select s.book_id, b.title, b.author, s.units, s.revenue from (" +
+                        "select book_id, sum(units) units, sum(revenue) revenue from sales_daily_book " +
+                        "where sale_date between ? and ? group by book_id order by sum(units) desc, book_id limit ?) s " +
+                        "join books b on b.id = s.book_id order by s.units desc, s.book_id",
+                (rs, rowNum) -> new BookSalesDTO(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4),
+                        rs.getBigDecimal(5)),
+                start(from, to), end(to), Math.max(1, Math.min(limit, MAX_TOP_SELLERS)));
+    }
+
+    public List<DailySalesDTO> getBookSales(Long bookId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("select sale_date, units, revenue from sales_daily_book " +
+                        "where book_id = ? and sale_date between ? and ? order by sale_date",
+                (rs, rowNum) -> new DailySalesDTO(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getBigDecimal(3)),
+                bookId, start(from, to), end(to));
+    }
+
+    // Runs one transaction per day on its own threads
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RollupRebuildDTO rebuildRollups(LocalDate from, LocalDate to) throws Exception {
+        return salesRollup.rebuild(from, to);
+    }
+
+    private static Date start(LocalDate from, LocalDate to) {
+        if (from != null) {
+            return Date.valueOf(from);
+        }
+        return Date.valueOf((to != null ? to : LocalDate.now()).minusDays(DEFAULT_RANGE_DAYS - 1));
+    }
+
+    private static Date end(LocalDate to) {
+        return Date.valueOf(to != null ? to : LocalDate.now());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.event.BookChangedEvent;
+import com.example.bookstore.exception.InsufficientStockException;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves stock with single conditional UPDATE statements instead of read-modify-write on the entity,
+ * so concurrent checkouts can neither lose updates nor oversell. A whole basket is applied with one
+ * statement. The row lock taken by the update is
+ * held only until the surrounding transaction commits; no application-level lock is involved.
+ */
+@Service
+@Timed("bookstore.service")
+@RequiredArgsConstructor
+@Transactional
+public class StockReservationService {
+
+    private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Takes the requested quantity of every book in one statement. Either all books are decremented or
+     * the exception rolls the whole transaction back.
+     */
+    public void reserveAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        quantities.forEach((bookId, quantity) -> deltas.put(bookId, -quantity));
+        if (bookRepository.applyStockDeltas(deltas) != deltas.size()) {
+            throw new InsufficientStockException("Insufficient stock for one or more books in the order");
+        }
+        eventPublisher.publishEvent(BookChangedEvent.of(quantities.keySet(), BookChangedEvent.Type.STOCK));
+    }
+
+    public void releaseAll(Map<Long, Integer> quantities) {
+        bookRepository.applyStockDeltas(quantities);
+        eventPublisher.publishEvent(BookChangedEvent.of(quantities.keySet(), BookChangedEvent.Type.STOCK));
+    }
+
+    public void adjust(Long bookId, int delta) {
+        if (bookRepository.adjustStock(bookId, delta) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new ResourceNotFoundException("Book not found with id: " + bookId);
+            }
+            throw new InsufficientStockException("Stock for book " + bookId + " cannot go below zero");
+        }
+        eventPublisher.publishEvent(BookChangedEvent.of(bookId, BookChangedEvent.Type.STOCK));
+    }
+}
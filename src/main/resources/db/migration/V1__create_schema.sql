@@ -0,0 +1,68 @@
+-- Baseline schema, matching the JPA mappings (validated at startup with ddl-auto=validate).
+-- Orders and order items take ids from pooled sequences so Hibernate can batch their inserts.
+
+create sequence orders_seq start with 1 increment by 50;
+create sequence order_items_seq start with 1 increment by 50;
+
+create table books (
+    id               bigint generated by default as identity primary key,
+    title            varchar(255)   not null,
+    author           varchar(255)   not null,
+    isbn             varchar(255)   not null,
+    price            numeric(38, 2) not null,
+    stock_quantity   integer        not null,
+    description      varchar(1000),
+    category         varchar(255),
+    publisher        varchar(255),
+    publication_year integer,
+    constraint uk_books_isbn unique (isbn)
+);
+
+create table customers (
+    id          bigint generated by default as identity primary key,
+    first_name  varchar(255) not null,
+    last_name   varchar(255) not null,
+    email       varchar(255) not null,
+    phone       varchar(255) not null,
+    address     varchar(255) not null,
+    city        varchar(255),
+    country     varchar(255),
+    postal_code varchar(255),
+    created_at  timestamp(6) not null,
+    constraint uk_customers_email unique (email)
+);
+
+create table orders (
+    id               bigint         not null primary key,
+    customer_id      bigint         not null,
+    total_amount     numeric(38, 2) not null,
+    status           varchar(20)    not null,
+    order_date       timestamp(6)   not null,
+    shipped_date     timestamp(6),
+    delivered_date   timestamp(6),
+    shipping_address varchar(255)
+);
+
+create table order_items (
+    id       bigint         not null primary key,
+    order_id bigint         not null,
+    book_id  bigint         not null,
+    quantity integer        not null,
+    price    numeric(38, 2) not null,
+    subtotal numeric(38, 2) not null
+);
+
+create table order_outbox (
+    order_id    bigint       not null primary key,
+    enqueued_at timestamp(6) not null
+);
+
+-- Indexes backing the foreign keys; created first so the constraints reuse them instead of adding their own.
+-- (customer_id, order_date) also serves "orders of a customer, newest first" without a sort.
+create index idx_orders_customer_date on orders (customer_id, order_date);
+create index idx_order_items_order on order_items (order_id);
+create index idx_order_items_book on order_items (book_id);
+
+alter table orders add constraint fk_orders_customer foreign key (customer_id) references customers (id);
+alter table order_items add constraint fk_order_items_order foreign key (order_id) references orders (id);
+alter table order_items add constraint fk_order_items_book foreign key (book_id) references books (id);
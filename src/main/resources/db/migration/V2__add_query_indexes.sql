@@ -0,0 +1,10 @@
+-- Secondary indexes for the filtered repository queries (see QueryPlanTest)
+
+-- findByCategory
+create index idx_books_category on books (category);
+-- findByStockQuantityGreaterThan
+create index idx_books_stock on books (stock_quantity);
+-- findByStatus; order_date second so status listings can come back in date order
+create index idx_orders_status_date on orders (status, order_date);
+-- findByOrderDateBetween
+create index idx_orders_order_date on orders (order_date);
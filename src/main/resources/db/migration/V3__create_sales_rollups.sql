@@ -0,0 +1,20 @@
+-- Sales rollups maintained incrementally by SalesRollup as orders commit. Cancelled orders are excluded.
+
+create table sales_daily_book (
+    sale_date date           not null,
+    book_id   bigint         not null,
+    units     bigint         not null,
+    revenue   numeric(19, 2) not null,
+    primary key (sale_date, book_id)
+);
+
+-- Units and revenue of one book over a date range
+create index idx_sales_daily_book_book on sales_daily_book (book_id, sale_date);
+
+create table sales_daily_category (
+    sale_date date           not null,
+    category  varchar(255)   not null,
+    units     bigint         not null,
+    revenue   numeric(19, 2) not null,
+    primary key (sale_date, category)
+);
@@ -0,0 +1,8 @@
+-- Written on the primary and read back from each replica to measure replication lag
+create table replication_heartbeat (
+    id integer not null,
+    beat_millis bigint not null,
+    primary key (id)
+);
+
+insert into replication_heartbeat (id, beat_millis) values (1, 0);
@@ -0,0 +1,4 @@
+-- Optimistic-locking versions, also served as ETags; bulk statements that change rows must bump them
+alter table books add column version bigint default 0 not null;
+alter table orders add column version bigint default 0 not null;
+alter table customers add column version bigint default 0 not null;
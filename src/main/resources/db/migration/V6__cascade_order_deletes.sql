@@ -0,0 +1,10 @@
+-- Orders go with their customer and order items with their order in the database, so deleting a customer is
+-- one statement instead of Hibernate loading and deleting every order and item. Books keep a plain foreign key:
+-- a book that appears in an order cannot be deleted.
+alter table orders drop constraint fk_orders_customer;
+alter table orders add constraint fk_orders_customer foreign key (customer_id) references customers (id)
+    on delete cascade;
+
+alter table order_items drop constraint fk_order_items_order;
+alter table order_items add constraint fk_order_items_order foreign key (order_id) references orders (id)
+    on delete cascade;
@@ -0,0 +1,6 @@
+-- The category a line was sold under, so that cancellations and rollup rebuilds book it under the same
+-- category as the sale did, whatever the book was recategorized to since. Existing lines take the book's
+-- current category, the best record there is of it.
+alter table order_items add column category varchar(255);
+update order_items i set category = coalesce((select b.category from books b where b.id = i.book_id), 'Uncategorized');
+alter table order_items alter column category set not null;
@@ -0,0 +1,117 @@
+package com.example.bookstore.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NegativeLookupCacheTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Test
+    void keysOutsideTheFilterAreRejectedWithoutLookup() {
+        NegativeLookupCache<String> cache = cache(Duration.ZERO);
+        cache.load(3, () -> Stream.of("a", "b", "c"));
+
+        assertThat(lookup(cache, "b", true)).contains("b");
+        assertThat(lookup(cache, "unknown", false)).isEmpty();
+        assertThat(queries).hasValue(1);
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+        assertThat(cache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void confirmedMissesAreCachedUntilTheKeyIsAdded() {
+        NegativeLookupCache<String> cache = cache(Duration.ZERO);
+        // Not loaded yet: nothing can be ruled out by the filter
+        assertThat(lookup(cache, "deleted", false)).isEmpty();
+        assertThat(lookup(cache, "deleted", false)).isEmpty();
+        assertThat(queries).hasValue(1);
+
+        cache.added("deleted");
+        assertThat(lookup(cache, "deleted", true)).contains("deleted");
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void missesOfRecentlyAddedKeysAreNotCached() {
+        NegativeLookupCache<String> cache = cache(Duration.ofHours(1));
+        cache.load(0, Stream::empty);
+        cache.added("fresh");
+
+        // A reader still on an older snapshot does not find it; that must not stick
+        assertThat(lookup(cache, "fresh", false)).isEmpty();
+        assertThat(lookup(cache, "fresh", true)).contains("fresh");
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void keysAddedDuringALoadAreKept() {
+        NegativeLookupCache<Long> cache = new NegativeLookupCache<>("test", BloomFilter::hash, 1000, 0.01,
+                1000, Duration.ofHours(1), Duration.ZERO);
+        cache.load(2, () -> Stream.of(1L, 2L).peek(key -> cache.added(99L)));
+        assertThat(cache.mightExist(99L)).isTrue();
+        assertThat(cache.isOverCapacity()).isFalse();
+    }
+
+    @Test
+    void keysCommittedBetweenTheKeyQueryAndTheSwapAreKept() {
+        NegativeLookupCache<Long> cache = new NegativeLookupCache<>("test", BloomFilter::hash, 1000, 0.01,
+                1000, Duration.ofHours(1), Duration.ZERO);
+        cache.load(1, () -> Stream.of(1L));
+
+        cache.load(1, () -> {
+            // The query has taken its snapshot; the insert commits before a single row is read
+            Stream<Long> snapshot = Stream.of(1L);
+            cache.added(99L);
+            return snapshot;
+        });
+        assertThat(cache.mightExist(99L)).isTrue();
+    }
+
+    @Test
+    void recentlyAddedKeysPassWhenAReloadMissedThem() {
+        NegativeLookupCache<Long> cache = new NegativeLookupCache<>("test", BloomFilter::hash, 1000, 0.01,
+                1000, Duration.ofHours(1), Duration.ofHours(1));
+        cache.load(1, () -> Stream.of(1L));
+        cache.added(99L);
+
+        // A reload reading a replica that has not caught up with the insert yet
+        cache.load(1, () -> Stream.of(1L));
+        assertThat(cache.mightExist(99L)).isTrue();
+        assertThat(cache.mightExist(98L)).isFalse();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        int keys = 1_000_000;
+        BloomFilter filter = new BloomFilter(keys, 0.01);
+        LongStream.range(0, keys).forEach(key -> filter.put(BloomFilter.hash("978-" + key)));
+        assertThat(LongStream.range(0, keys).allMatch(key -> filter.mightContain(BloomFilter.hash("978-" + key))))
+                .isTrue();
+
+        int probes = 1_000_000;
+        long falsePositives = LongStream.range(0, probes)
+                .filter(key -> filter.mightContain(BloomFilter.hash("missing-" + key)))
+                .count();
+        assertThat((double) falsePositives / probes).isLessThan(0.015);
+    }
+
+    private NegativeLookupCache<String> cache(Duration addedGrace) {
+        return new NegativeLookupCache<>("test", BloomFilter::hash, 1000, 0.01, 1000, Duration.ofHours(1),
+                addedGrace);
+    }
+
+    private Optional<String> lookup(NegativeLookupCache<String> cache, String key, boolean exists) {
+        return cache.lookup(key, k -> {
+            queries.incrementAndGet();
+            return exists ? Optional.of(k) : Optional.empty();
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bookstore.cart;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CartStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final CartStore store = new CartStore(1_000, Duration.ofMinutes(30), 3, 5, nanos::get);
+
+    @Test
+    void linesKeepTheirOrderAndEmptyCartsAreDropped() {
+        store.add(1, 10, 1);
+        store.add(1, 20, 2);
+        store.add(1, 10, 2);
+        assertThat(store.lines(1)).containsExactly(new CartLine(10, 3), new CartLine(20, 2));
+
+        store.setQuantity(1, 20, 4);
+        assertThat(store.remove(1, 10)).containsExactly(new CartLine(20, 4));
+        assertThat(store.setQuantity(1, 20, 0)).isEmpty();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void limitsLeaveTheCartUnchanged() {
+        store.add(1, 10, 5);
+        assertThatThrownBy(() -> store.add(1, 10, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.setQuantity(1, 10, -1)).isInstanceOf(IllegalArgumentException.class);
+        store.add(1, 20, 1);
+        store.add(1, 30, 1);
+        assertThatThrownBy(() -> store.add(1, 40, 1)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(store.lines(1)).containsExactly(new CartLine(10, 5), new CartLine(20, 1), new CartLine(30, 1));
+    }
+
+    @Test
+    void idleCartsExpireWhileUsedOnesStay() {
+        store.add(1, 10, 1);
+        store.add(2, 10, 1);
+        nanos.addAndGet(Duration.ofMinutes(20).toNanos());
+        store.lines(2);
+        nanos.addAndGet(Duration.ofMinutes(20).toNanos());
+
+        assertThat(store.lines(1)).isEmpty();
+        assertThat(store.lines(2)).containsExactly(new CartLine(10, 1));
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void takeEmptiesTheCartOnceAndRestoreMergesWhatWasAddedSince() {
+        store.add(1, 10, 2);
+        store.add(1, 20, 1);
+        List<CartLine> taken = store.take(1);
+        assertThat(taken).containsExactly(new CartLine(10, 2), new CartLine(20, 1));
+        assertThat(store.take(1)).isEmpty();
+
+        store.add(1, 30, 1);
+        store.add(1, 10, 4);
+        // Back ahead of the new lines, capped at the quantity limit, past the line limit if need be
+        store.add(1, 40, 1);
+        assertThat(store.restore(1, taken)).containsExactly(
+                new CartLine(10, 5), new CartLine(20, 1), new CartLine(30, 1), new CartLine(40, 1));
+    }
+
+    @Test
+    void concurrentUpdatesOfOneCartAreNotLost() throws InterruptedException {
+        CartStore store = new CartStore(1_000, Duration.ofMinutes(30), 100, 100_000, System::nanoTime);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    store.add(1, i % 10, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(store.lines(1)).hasSize(10).allSatisfy(line -> assertThat(line.quantity()).isEqualTo(4_000));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the HTTP layer with the default Tomcat thread pool; on Java 21+ {@link VirtualThreadGateTest} runs
+ * the same tests with {@code spring.threads.virtual.enabled}. Throughput and latency of the two modes are
+ * compared by {@code HttpThreadModeBenchmark} in the benchmark profile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "bookstore.datasource.gate.enabled=true",
+        "bookstore.orders.intake.workers=0"
+})
+class ConnectionGateTest {
+
+    private static final int REQUESTS = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Test
+    void gateIsSizedToPoolAndReleasesOnClose() throws Exception {
+        assertThat(dataSource).isInstanceOf(ConnectionGateDataSource.class);
+        ConnectionGateDataSource gate = (ConnectionGateDataSource) dataSource;
+        assertThat(gate.getCapacity()).isEqualTo(10);
+
+        ConnectionGateDataSource narrow = new ConnectionGateDataSource(gate, 2, Duration.ofMillis(50));
+        Connection first = narrow.getConnection();
+        Connection second = narrow.getConnection();
+        assertThatThrownBy(narrow::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close();
+        assertThat(narrow.getInUse()).isEqualTo(1);
+        narrow.getConnection().close();
+        second.close();
+        assertThat(narrow.getInUse()).isZero();
+    }
+
+    @Test
+    void burstLargerThanThePoolQueuesAtTheGateAndDrains() throws Exception {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setFirstName("Gate");
+        customer.setLastName("Tester");
+        customer.setEmail("gate-" + System.nanoTime() + "@example.com");
+        customer.setPhone("+10000000000");
+        customer.setAddress("1 Test Way");
+        Long customerId = customerService.createCustomer(customer).getId();
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/customers/" + customerId))
+                .build();
+
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            assertThat(response.get(2, TimeUnit.MINUTES).statusCode()).isEqualTo(200);
+        }
+
+        // Connections go back to the pool once the response has been committed
+        ConnectionGateDataSource gate = (ConnectionGateDataSource) dataSource;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gate.getInUse() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(gate.getInUse()).isZero();
+        assertThat(gate.getQueueLength()).isZero();
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Two in-memory H2 databases stand in for primary and replica; replicate() plays the part of replication
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "bookstore.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "bookstore.datasource.replica.max-lag=" + ReplicaRoutingTest.MAX_LAG_MILLIS + "ms",
+        "bookstore.datasource.replica.lag-check-interval=50ms",
+        "bookstore.orders.intake.workers=0"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    static final long MAX_LAG_MILLIS = 3_000;
+
+    // Few enough to finish well within the lag tolerance after a replication
+    private static final int READS = 50;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ReplicaDataSource replicas;
+
+    @BeforeEach
+    void replicateAndWaitForReplica() {
+        replicas = ((ReadWriteRoutingDataSource) dataSource).getReplicas();
+        replicate();
+        awaitUntil(() -> replicas.getLagMillis().get(0) <= MAX_LAG_MILLIS);
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByTheReplica() {
+        Long customerId = customerService.createCustomer(newCustomer()).getId();
+        long served = replicas.getReplicaConnections();
+
+        // Not replicated yet: the replica does not know the customer, the primary does
+        assertThatThrownBy(() -> customerService.getCustomerById(customerId))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(replicas.getReplicaConnections()).isGreaterThan(served);
+
+        replicate();
+        assertThat(customerService.getCustomerById(customerId).getId()).isEqualTo(customerId);
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() {
+        Long customerId = customerService.createCustomer(newCustomer()).getId();
+
+        // Without replication the replica's heartbeat goes stale until it exceeds the tolerance
+        awaitUntil(() -> replicas.getLagMillis().get(0) > MAX_LAG_MILLIS);
+        long fallbacks = replicas.getPrimaryFallbacks();
+        assertThat(customerService.getCustomerById(customerId).getId()).isEqualTo(customerId);
+        assertThat(replicas.getPrimaryFallbacks()).isGreaterThan(fallbacks);
+    }
+
+    @Test
+    void explicitCredentialsAreNotSupported() {
+        assertThatThrownBy(() -> replicas.getConnection("sa", ""))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+    }
+
+    @Test
+    void withoutReplicasReadsGoToThePrimary() throws Exception {
+        DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:routing-primary", "sa", "");
+        try (ReplicaDataSource none = new ReplicaDataSource(primary, List.of(), Duration.ofSeconds(1),
+                Duration.ofMinutes(1));
+             Connection connection = none.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:routing-primary");
+            assertThat(none.getPrimaryFallbacks()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void onlyReadOnlyTransactionsReachTheReplica() {
+        bookService.createBook(newBook("routing-" + System.nanoTime()));
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Same page read as getBooksPage, once in a read-write transaction and once through the read-only path
+        long served = replicas.getReplicaConnections();
+        for (int i = 0; i < READS; i++) {
+            readWrite.executeWithoutResult(status -> bookRepository.findAll().size());
+        }
+        assertThat(replicas.getReplicaConnections()).isEqualTo(served);
+
+        replicate();
+        awaitUntil(() -> replicas.getLagMillis().get(0) <= MAX_LAG_MILLIS);
+        served = replicas.getReplicaConnections();
+        for (int i = 0; i < READS; i++) {
+            readOnly.executeWithoutResult(status -> bookRepository.findAll().size());
+        }
+        assertThat(replicas.getReplicaConnections() - served).isEqualTo(READS);
+    }
+
+    // Copies the primary into the replica, heartbeat included, as a replication catch-up would
+    private void replicate() {
+        List<String> script = new JdbcTemplate(dataSource).queryForList("script", String.class);
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Replication failed", e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static CustomerDTO newCustomer() {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setFirstName("Replica");
+        dto.setLastName("Reader");
+        dto.setEmail("replica-" + System.nanoTime() + "@example.com");
+        dto.setPhone("+10000000000");
+        dto.setAddress("1 Test Way");
+        return dto;
+    }
+
+    private static BookDTO newBook(String isbn) {
+        BookDTO dto = new BookDTO();
+        dto.setTitle("Routing " + isbn);
+        dto.setAuthor("Test Author");
+        dto.setIsbn(isbn);
+        dto.setPrice(new BigDecimal("9.99"));
+        dto.setStockQuantity(10);
+        dto.setCategory("Test");
+        return dto;
+    }
+}
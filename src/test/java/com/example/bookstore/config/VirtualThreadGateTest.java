@@ -0,0 +1,18 @@
+package com.example.bookstore.config;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The {@link ConnectionGateTest}s with requests served on virtual threads, as in the {@code virtual} profile.
+ * Spring Boot only honours the setting on Java 21+, so on older runtimes there is nothing new to test.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "bookstore.datasource.gate.enabled=true",
+        "bookstore.orders.intake.workers=0"
+})
+class VirtualThreadGateTest extends ConnectionGateTest {
+}
@@ -0,0 +1,227 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.metrics.SqlStatementsPerRequestFilter;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.CustomerService;
+import com.example.bookstore.service.OrderService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class ConditionalGetTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SqlStatementsPerRequestFilter sqlStatementsPerRequestFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void bookIsRevalidatedUntilItChanges() throws Exception {
+        Long bookId = bookService.createBook(newBook("etag-" + System.nanoTime(), "Etag")).getId();
+
+        MockHttpServletResponse first = get("/api/books/" + bookId, null);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(etag).startsWith("W/\"" + bookId + "-");
+
+        MockHttpServletResponse revalidated = get("/api/books/" + bookId, etag);
+        assertThat(revalidated.getStatus()).isEqualTo(304);
+        assertThat(revalidated.getContentAsByteArray()).isEmpty();
+        assertThat(get("/api/books/" + bookId, etag.substring(2) + ", \"other\"").getStatus()).isEqualTo(304);
+
+        // Stock moves through a bulk update, which must still change the tag
+        bookService.updateStock(bookId, 1);
+        MockHttpServletResponse changed = get("/api/books/" + bookId, etag);
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(changed.getContentAsString()).contains("\"stockQuantity\":11");
+
+        assertThat(get("/api/books/" + Long.MAX_VALUE, etag).getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void orderTagFollowsStatusChangesAndItsBooks() throws Exception {
+        BookDTO book = bookService.createBook(newBook("etag-order-" + System.nanoTime(), "Etag"));
+        Long orderId = orderService.createOrder(newOrder(customerService.createCustomer(newCustomer()).getId(),
+                book.getId())).getId();
+
+        String etag = get("/api/orders/" + orderId, null).getHeader(HttpHeaders.ETAG);
+        assertThat(get("/api/orders/" + orderId, etag).getStatus()).isEqualTo(304);
+
+        orderService.updateOrderStatus(orderId, OrderStatus.SHIPPED);
+        MockHttpServletResponse changed = get("/api/orders/" + orderId, etag);
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getContentAsString()).contains("SHIPPED");
+
+        // The items show the book's title, so renaming the book changes the order's tag too
+        String shipped = changed.getHeader(HttpHeaders.ETAG);
+        book.setTitle("Renamed In Order");
+        bookService.updateBook(book.getId(), book);
+        MockHttpServletResponse renamed = get("/api/orders/" + orderId, shipped);
+        assertThat(renamed.getStatus()).isEqualTo(200);
+        assertThat(renamed.getContentAsString()).contains("Renamed In Order");
+    }
+
+    @Test
+    void listTagsChangeWithMembershipAndUpdates() throws Exception {
+        String category = "etag-list-" + System.nanoTime();
+        BookDTO book = bookService.createBook(newBook(category + "-1", category));
+        String path = "/api/books/category/" + category;
+
+        String etag = get(path, null).getHeader(HttpHeaders.ETAG);
+        assertThat(get(path, etag).getStatus()).isEqualTo(304);
+
+        bookService.createBook(newBook(category + "-2", category));
+        String afterInsert = get(path, etag).getHeader(HttpHeaders.ETAG);
+        assertThat(afterInsert).isNotEqualTo(etag);
+
+        book.setTitle("Renamed");
+        bookService.updateBook(book.getId(), book);
+        MockHttpServletResponse afterUpdate = get(path, afterInsert);
+        assertThat(afterUpdate.getStatus()).isEqualTo(200);
+        assertThat(afterUpdate.getContentAsString()).contains("Renamed");
+
+        String available = get("/api/books/available", null).getHeader(HttpHeaders.ETAG);
+        assertThat(get("/api/books/available", available).getStatus()).isEqualTo(304);
+        bookService.updateStock(book.getId(), -10);
+        assertThat(get("/api/books/available", available).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void listTagsTellApartRowsWithTheSameTotals() throws Exception {
+        String category = "etag-swap-" + System.nanoTime();
+        String path = "/api/books/category/" + category;
+        // Far above what the book sequence hands out; 3 + 9 and 5 + 7 have the same id and version totals
+        long base = 4_000_000_000L;
+        insertBooks(category, base + 3, base + 9);
+        String etag = get(path, null).getHeader(HttpHeaders.ETAG);
+
+        jdbcTemplate.update("delete from books where category = ?", category);
+        insertBooks(category, base + 5, base + 7);
+        MockHttpServletResponse swapped = get(path, etag);
+        jdbcTemplate.update("delete from books where category = ?", category);
+
+        assertThat(swapped.getStatus()).isEqualTo(200);
+        assertThat(swapped.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void revalidationSkipsTheCatalogRead() throws Exception {
+        bookService.createBook(newBook("etag-cost-" + System.nanoTime(), "Etag"));
+        MockMvc counted = MockMvcBuilders.webAppContextSetup(context).addFilters(sqlStatementsPerRequestFilter).build();
+
+        double before = availableStatements();
+        MockHttpServletResponse full = counted.perform(MockMvcRequestBuilders.get("/api/books/available"))
+                .andReturn().getResponse();
+        double fullStatements = availableStatements() - before;
+
+        before = availableStatements();
+        MockHttpServletResponse revalidated = counted.perform(MockMvcRequestBuilders.get("/api/books/available")
+                .header(HttpHeaders.IF_NONE_MATCH, full.getHeader(HttpHeaders.ETAG))).andReturn().getResponse();
+        double revalidatedStatements = availableStatements() - before;
+
+        assertThat(full.getContentAsByteArray()).isNotEmpty();
+        assertThat(revalidated.getStatus()).isEqualTo(304);
+        assertThat(revalidated.getContentAsByteArray()).isEmpty();
+        // The version query alone, without the catalog read
+        assertThat(revalidatedStatements).isLessThan(fullStatements);
+    }
+
+    private double availableStatements() {
+        DistributionSummary summary = meterRegistry.find("bookstore.sql.statements.per.request")
+                .tag("uri", "/api/books/available").summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+
+    // Written directly, so the ids are chosen and the catalog indexes never see the rows
+    private void insertBooks(String category, long... ids) {
+        for (long id : ids) {
+            jdbcTemplate.update("insert into books (id, title, author, isbn, price, stock_quantity, category, version) "
+                    + "values (?, ?, 'Test Author', ?, 9.99, 10, ?, 0)", id, "Swap " + id, category + "-" + id, category);
+        }
+    }
+
+    private MockHttpServletResponse get(String path, String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(path);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private static BookDTO newBook(String isbn, String category) {
+        BookDTO dto = new BookDTO();
+        dto.setTitle("Etag Book " + isbn);
+        dto.setAuthor("Test Author");
+        dto.setIsbn(isbn);
+        dto.setPrice(new BigDecimal("9.99"));
+        dto.setStockQuantity(10);
+        dto.setCategory(category);
+        return dto;
+    }
+
+    private static CustomerDTO newCustomer() {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setFirstName("Etag");
+        dto.setLastName("Tester");
+        dto.setEmail("etag-" + System.nanoTime() + "@example.com");
+        dto.setPhone("+10000000000");
+        dto.setAddress("1 Test Way");
+        return dto;
+    }
+
+    private static OrderDTO newOrder(Long customerId, Long bookId) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setBookId(bookId);
+        item.setQuantity(1);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(customerId);
+        order.setItems(List.of(item));
+        return order;
+    }
+}
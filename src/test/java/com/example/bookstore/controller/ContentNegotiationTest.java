@@ -0,0 +1,144 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compression is applied by the embedded server, so these requests go over a real connection
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "bookstore.orders.intake.workers=0")
+class ContentNegotiationTest {
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String JSON = "application/json";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final Map<String, ObjectMapper> mappers = Map.of(
+            JSON, new JsonMapper(), CBOR, new CBORMapper(), SMILE, new SmileMapper());
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void booksRoundTripInEveryFormat() throws Exception {
+        for (String format : List.of(JSON, CBOR, SMILE)) {
+            BookDTO book = newBook("format-" + System.nanoTime(), "Formats", 10);
+            HttpResponse<byte[]> created = client.send(HttpRequest.newBuilder(uri("/api/books"))
+                    .header(HttpHeaders.CONTENT_TYPE, format)
+                    .header(HttpHeaders.ACCEPT, format)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mappers.get(format).writeValueAsBytes(book)))
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(created.statusCode()).isEqualTo(201);
+            assertThat(created.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValueSatisfying(
+                    type -> assertThat(type).startsWith(format));
+
+            BookDTO read = mappers.get(format).readValue(get("/api/books/" + decode(format, created).getId(), format, false)
+                    .body(), BookDTO.class);
+            assertThat(read.getTitle()).isEqualTo(book.getTitle());
+            assertThat(read.getPrice()).isEqualByComparingTo(book.getPrice());
+        }
+        assertThat(jsonMapper.registeredModules()).anyMatch(BlackbirdModule.class::isInstance);
+    }
+
+    @Test
+    void largeResponsesAreCompressed() throws Exception {
+        String category = "compressed-" + System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            bookService.createBook(newBook(category + "-" + i, category, 1000));
+        }
+        String path = "/api/books/category/" + category;
+
+        for (String format : List.of(JSON, CBOR, SMILE)) {
+            byte[] plain = get(path, format, false).body();
+            HttpResponse<byte[]> gzipped = get(path, format, true);
+            assertThat(gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+            assertThat(gzipped.headers().allValues(HttpHeaders.VARY).stream()
+                    .flatMap(vary -> Arrays.stream(vary.split(",")))
+                    .map(String::trim))
+                    .anyMatch(HttpHeaders.ACCEPT::equalsIgnoreCase)
+                    .anyMatch(HttpHeaders.ACCEPT_ENCODING::equalsIgnoreCase);
+            assertThat(gunzip(gzipped.body())).isEqualTo(plain);
+            assertThat(gzipped.body().length).isLessThan(plain.length);
+
+            // Tags are weak, so the compressed representation is revalidated like the plain one
+            String etag = gzipped.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+            HttpResponse<byte[]> revalidated = client.send(HttpRequest.newBuilder(uri(path))
+                    .header(HttpHeaders.ACCEPT, format)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(revalidated.statusCode()).isEqualTo(304);
+        }
+
+        // Below the size threshold the body is sent as is
+        Long small = bookService.createBook(newBook(category + "-small", category, 10)).getId();
+        assertThat(get("/api/books/" + small, JSON, true).headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, boolean gzip) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).header(HttpHeaders.ACCEPT, accept);
+        if (gzip) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response;
+    }
+
+    private BookDTO decode(String format, HttpResponse<byte[]> response) {
+        return mappers.get(format).readValue(response.body(), BookDTO.class);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static byte[] gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static BookDTO newBook(String isbn, String category, int descriptionLength) {
+        BookDTO dto = new BookDTO();
+        dto.setTitle("Format Book " + isbn);
+        dto.setAuthor("Test Author");
+        dto.setIsbn(isbn);
+        dto.setPrice(new BigDecimal("9.99"));
+        dto.setStockQuantity(10);
+        dto.setDescription("A catalog description that repeats itself. ".repeat(descriptionLength / 43 + 1)
+                .substring(0, descriptionLength));
+        dto.setCategory(category);
+        return dto;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.metrics.SqlStatementsPerRequestFilter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class NotFoundLookupTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private SqlStatementsPerRequestFilter sqlStatementsPerRequestFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void missingKeysGetTheUsualErrorBody() throws Exception {
+        MockHttpServletResponse isbn = get("/api/books/isbn/no-such-isbn-" + System.nanoTime());
+        assertThat(isbn.getStatus()).isEqualTo(404);
+        assertThat(isbn.getContentAsString()).contains("\"status\":404", "Book not found with ISBN");
+
+        MockHttpServletResponse email = get("/api/customers/email/nobody-" + System.nanoTime() + "@example.com");
+        assertThat(email.getStatus()).isEqualTo(404);
+        assertThat(email.getContentAsString()).contains("Customer not found with email");
+
+        assertThat(get("/api/books/" + Long.MAX_VALUE).getStatus()).isEqualTo(404);
+        assertThat(get("/api/customers/" + Long.MAX_VALUE).getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void missStormIssuesAlmostNoSql() throws Exception {
+        int requests = 5_000;
+        String prefix = "/api/books/isbn/scraped-" + System.nanoTime() + "-";
+        MockMvc counted = MockMvcBuilders.webAppContextSetup(context).addFilters(sqlStatementsPerRequestFilter).build();
+        double before = isbnStatements();
+
+        int notFound = 0;
+        for (int i = 0; i < requests; i++) {
+            if (counted.perform(MockMvcRequestBuilders.get(prefix + i)).andReturn().getResponse().getStatus() == 404) {
+                notFound++;
+            }
+        }
+
+        assertThat(notFound).isEqualTo(requests);
+        assertThat(meterRegistry.get("bookstore.sql.statements.per.request").tag("uri", "/api/books/isbn/{isbn}")
+                .summary().count()).isGreaterThanOrEqualTo(requests);
+        // Only the filter's false positives reach the database
+        assertThat(isbnStatements() - before).isLessThan(requests * 0.02);
+    }
+
+    private double isbnStatements() {
+        DistributionSummary summary = meterRegistry.find("bookstore.sql.statements.per.request")
+                .tag("uri", "/api/books/isbn/{isbn}").summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+
+    private MockHttpServletResponse get(String path) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn().getResponse();
+    }
+}
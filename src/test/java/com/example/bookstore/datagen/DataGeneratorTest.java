@@ -0,0 +1,71 @@
+package com.example.bookstore.datagen;
+
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:datagen-test;DB_CLOSE_DELAY=-1",
+        "bookstore.orders.intake.workers=0",
+        "bookstore.datagen.books=5000",
+        "bookstore.datagen.customers=1000",
+        "bookstore.datagen.orders=20000",
+        "bookstore.datagen.chunk-size=1000",
+        "bookstore.datagen.threads=4"
+})
+@ActiveProfiles("datagen")
+class DataGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void generatesRequestedVolumesWithSkew() {
+        assertThat(count("select count(*) from books")).isEqualTo(5_000);
+        assertThat(count("select count(*) from customers")).isEqualTo(1_000);
+        assertThat(count("select count(*) from orders")).isEqualTo(20_000);
+        long items = count("select count(*) from order_items");
+        assertThat(items).isGreaterThan(20_000);
+        assertThat(count("select count(*) from orders where status = 'PENDING'")).isZero();
+
+        // Top 1% of books carry a large share of the order lines; the top 10% of customers place many orders
+        long topBookLines = count("select coalesce(sum(c), 0) from (select count(*) c from order_items " +
+                "group by book_id order by c desc limit 50)");
+        assertThat(topBookLines).isGreaterThan(items / 4);
+        long topCustomerOrders = count("select coalesce(sum(c), 0) from (select count(*) c from orders " +
+                "group by customer_id order by c desc limit 100)");
+        assertThat(topCustomerOrders).isGreaterThan(20_000 / 4);
+
+        assertThat(count("select count(*) from orders o where o.total_amount <> " +
+                "(select sum(i.subtotal) from order_items i where i.order_id = o.id)")).isZero();
+    }
+
+    @Test
+    void applicationKeepsGeneratingIdsAfterSeeding() {
+        long maxOrderId = count("select max(id) from orders");
+        OrderItemDTO item = new OrderItemDTO();
+        item.setBookId(count("select min(id) from books where stock_quantity > 0"));
+        item.setQuantity(1);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(1L);
+        order.setItems(List.of(item));
+
+        assertThat(orderService.createOrder(order).getId()).isGreaterThan(maxOrderId);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bookstore.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipfSamplerTest {
+
+    @Test
+    void frequenciesFollowPowerLaw() {
+        int n = 1_000;
+        ZipfSampler sampler = new ZipfSampler(n, 1.0);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[n + 1];
+        int samples = 500_000;
+        for (int i = 0; i < samples; i++) {
+            int rank = sampler.sample(random);
+            assertThat(rank).isBetween(1, n);
+            counts[rank]++;
+        }
+
+        double harmonic = 0;
+        for (int k = 1; k <= n; k++) {
+            harmonic += 1.0 / k;
+        }
+        assertThat(counts[1] / (double) samples).isCloseTo(1 / harmonic, within(0.005));
+        assertThat(counts[1] / (double) counts[4]).isCloseTo(4.0, within(0.3));
+    }
+
+    @Test
+    void permutationCoversEveryId() {
+        int n = 1_000;
+        boolean[] seen = new boolean[n + 1];
+        for (int rank = 1; rank <= n; rank++) {
+            seen[(int) DataGenerator.permute(rank, n)] = true;
+        }
+        for (int id = 1; id <= n; id++) {
+            assertThat(seen[id]).isTrue();
+        }
+    }
+}
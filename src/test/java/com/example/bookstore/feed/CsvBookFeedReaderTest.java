@@ -0,0 +1,46 @@
+package com.example.bookstore.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvBookFeedReaderTest {
+
+    @Test
+    void parsesQuotedFieldsAndTracksLines() throws Exception {
+        String csv = "isbn,title,author,price,stock_quantity,description,unused\r\n" +
+                "1,\"Dune, Part \"\"One\"\"\",Herbert,9.99,5,\"two\nlines\",x\r\n" +
+                "\n" +
+                "2,Emma,Austen,abc,1,,x\n" +
+                "3,Short,Row\n" +
+                "4,Last,Author,1.50,0,,x";
+
+        try (BookFeedReader reader = new CsvBookFeedReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            FeedRow first = reader.next();
+            assertThat(first.line()).isEqualTo(2);
+            assertThat(first.book().getTitle()).isEqualTo("Dune, Part \"One\"");
+            assertThat(first.book().getDescription()).isEqualTo("two\nlines");
+            assertThat(first.book().getPrice()).isEqualByComparingTo(new BigDecimal("9.99"));
+            assertThat(first.book().getStockQuantity()).isEqualTo(5);
+
+            FeedRow badNumber = reader.next();
+            assertThat(badNumber.line()).isEqualTo(5);
+            assertThat(badNumber.error()).isEqualTo("price: not a number: abc");
+
+            FeedRow shortRow = reader.next();
+            assertThat(shortRow.line()).isEqualTo(6);
+            assertThat(shortRow.error()).contains("Expected 7 columns");
+
+            FeedRow last = reader.next();
+            assertThat(last.line()).isEqualTo(7);
+            assertThat(last.book().getIsbn()).isEqualTo("4");
+            assertThat(last.book().getDescription()).isNull();
+
+            assertThat(reader.next()).isNull();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.bookstore.metrics;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.report.BestsellerLeaderboard;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.CustomerService;
+import com.example.bookstore.service.OrderService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@ActiveProfiles("metrics")
+class MetricsTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SqlStatementsPerRequestFilter sqlStatementsPerRequestFilter;
+
+    @Autowired
+    private TopSellerStockMetrics topSellerStockMetrics;
+
+    @Autowired
+    private BestsellerLeaderboard bestsellerLeaderboard;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Test
+    void serviceMethodsAreTimed() {
+        bookService.getBooksPage(null, 5);
+
+        assertThat(meterRegistry.find("bookstore.service")
+                .tag("class", BookService.class.getName())
+                .tag("method", "getBooksPage")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    void sqlStatementsAreCountedPerRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/count-probe");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/count-probe");
+
+        sqlStatementsPerRequestFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            bookRepository.count();
+            bookRepository.count();
+        });
+
+        DistributionSummary summary = meterRegistry.get("bookstore.sql.statements.per.request")
+                .tag("uri", "/api/books/count-probe")
+                .summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("hibernate.flushes").functionCounter()).isNotNull();
+    }
+
+    @Test
+    void statementsOfStreamedBodiesCountTowardTheirRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(sqlStatementsPerRequestFilter).build();
+        DistributionSummary before = meterRegistry.find("bookstore.sql.statements.per.request")
+                .tag("uri", "/api/books/export").summary();
+        double statementsBefore = before != null ? before.totalAmount() : 0;
+
+        MvcResult started = mockMvc.perform(get("/api/books/export")).andReturn();
+        assertThat(started.getRequest().isAsyncStarted()).isTrue();
+        mockMvc.perform(asyncDispatch(started));
+
+        DistributionSummary summary = meterRegistry.get("bookstore.sql.statements.per.request")
+                .tag("uri", "/api/books/export")
+                .summary();
+        // The catalog is read on the executor thread that writes the body
+        assertThat(summary.totalAmount()).isGreaterThan(statementsBefore);
+    }
+
+    @Test
+    void bookCacheStatisticsAreExported() {
+        Long bookId = bookService.getBooksPage(null, 1).getItems().get(0).getId();
+        double hitsBefore = cacheGets("books.byId", "hit");
+
+        bookService.getBookById(bookId);
+        bookService.getBookById(bookId);
+
+        assertThat(cacheGets("books.byId", "hit")).isGreaterThan(hitsBefore);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "books.byIsbn").gauge()).isNotNull();
+    }
+
+    @Test
+    void topSellerStockIsPublishedPerIsbn() {
+        String isbn = "metrics-" + System.nanoTime();
+        BookDTO book = new BookDTO();
+        book.setTitle("Metrics Book");
+        book.setAuthor("Test Author");
+        book.setIsbn(isbn);
+        book.setPrice(new BigDecimal("9.99"));
+        book.setStockQuantity(1000);
+        Long bookId = bookService.createBook(book).getId();
+
+        CustomerDTO customer = new CustomerDTO();
+        customer.setFirstName("Metrics");
+        customer.setLastName("Tester");
+        customer.setEmail("metrics-" + System.nanoTime() + "@example.com");
+        customer.setPhone("+10000000000");
+        customer.setAddress("1 Test Way");
+        Long customerId = customerService.createCustomer(customer).getId();
+
+        OrderItemDTO item = new OrderItemDTO();
+        item.setBookId(bookId);
+        item.setQuantity(900);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(customerId);
+        order.setItems(List.of(item));
+        orderService.createOrder(order);
+
+        bestsellerLeaderboard.refresh();
+        topSellerStockMetrics.refresh();
+
+        Gauge gauge = meterRegistry.get("bookstore.book.stock").tag("isbn", isbn).gauge();
+        assertThat(gauge.value()).isEqualTo(100.0);
+    }
+
+    private double cacheGets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bookstore.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BestsellerLeaderboardTest {
+
+    private static final long NOW = 29_000_000L;
+
+    @Test
+    void salesLeaveEachWindowAsTheClockMovesOn() {
+        BestsellerLeaderboard leaderboard = new BestsellerLeaderboard(null, null, 10);
+        leaderboard.advanceTo(NOW);
+        leaderboard.record(NOW - 30, 1, 5);
+        leaderboard.record(NOW - 120, 2, 7);
+        leaderboard.record(NOW - 2 * 24 * 60, 3, 9);
+
+        assertThat(ids(leaderboard, BestsellerWindow.HOUR)).containsExactly(1L);
+        assertThat(ids(leaderboard, BestsellerWindow.DAY)).containsExactly(2L, 1L);
+        assertThat(ids(leaderboard, BestsellerWindow.WEEK)).containsExactly(3L, 2L, 1L);
+
+        leaderboard.advanceTo(NOW + 31);
+        assertThat(ids(leaderboard, BestsellerWindow.HOUR)).isEmpty();
+        assertThat(ids(leaderboard, BestsellerWindow.DAY)).containsExactly(2L, 1L);
+
+        leaderboard.advanceTo(NOW + 5 * 24 * 60);
+        assertThat(ids(leaderboard, BestsellerWindow.DAY)).isEmpty();
+        assertThat(ids(leaderboard, BestsellerWindow.WEEK)).containsExactly(2L, 1L);
+
+        leaderboard.advanceTo(NOW + 30 * 24 * 60);
+        assertThat(ids(leaderboard, BestsellerWindow.WEEK)).isEmpty();
+    }
+
+    @Test
+    void sizeMustBePositive() {
+        assertThatThrownBy(() -> new BestsellerLeaderboard(null, null, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("bookstore.bestsellers.size");
+    }
+
+    @Test
+    void cancellationsAreTakenOutOfTheMinuteOfTheSale() {
+        BestsellerLeaderboard leaderboard = new BestsellerLeaderboard(null, null, 10);
+        leaderboard.advanceTo(NOW);
+        leaderboard.record(NOW - 10, 1, 4);
+        leaderboard.record(NOW - 10, 2, 3);
+        leaderboard.record(NOW - 10, 1, -2);
+
+        long[][] top = leaderboard.topIds(BestsellerWindow.HOUR, 10);
+        assertThat(top[0]).containsExactly(2, 1);
+        assertThat(top[1]).containsExactly(3, 2);
+
+        // Once the sale has left the hour, its cancellation no longer touches the hourly totals
+        leaderboard.advanceTo(NOW + 60);
+        leaderboard.record(NOW - 10, 2, -3);
+        assertThat(leaderboard.topIds(BestsellerWindow.HOUR, 10)[0]).isEmpty();
+        assertThat(leaderboard.topIds(BestsellerWindow.DAY, 10)[0]).containsExactly(1);
+    }
+
+    @Test
+    void countMapMatchesReferenceUnderRandomUpdates() {
+        SplittableRandom random = new SplittableRandom(7);
+        LongCountMap map = new LongCountMap();
+        Map<Long, Long> reference = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            long delta = random.nextInt(-3, 6);
+            if (delta == 0) {
+                continue;
+            }
+            map.add(key, delta);
+            reference.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        reference.forEach((key, count) -> assertThat(map.get(key)).isEqualTo(count));
+
+        long[][] top = map.top(50);
+        long[] expected = reference.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(50)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        assertThat(top[0]).containsExactly(expected);
+    }
+
+    private static long[] ids(BestsellerLeaderboard leaderboard, BestsellerWindow window) {
+        return leaderboard.topIds(window, 10)[0];
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.entity.OrderStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every derived query once, captures the SQL Hibernate generates for it and fails if H2's plan for
+ * that SQL scans a whole table. New derived queries must be added here or to the exemptions.
+ */
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class QueryPlanTest {
+
+    // Substring matches cannot use a B-tree index; catalog search goes through CatalogSearchIndex instead
+    private static final Set<String> EXEMPT = Set.of(
+            "BookRepository.findByAuthorContainingIgnoreCase",
+            "BookRepository.findByTitleContainingIgnoreCase",
+            "BookRepository.streamAllByOrderByIdAsc");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> captured = new ArrayList<>();
+    private Session session;
+    private JpaRepositoryFactory factory;
+
+    @BeforeEach
+    void openCapturingSession() {
+        session = entityManagerFactory.unwrap(SessionFactory.class)
+                .withOptions()
+                .statementInspector((UnaryOperator<String>) sql -> {
+                    captured.add(sql);
+                    return sql;
+                })
+                .openSession();
+        factory = new JpaRepositoryFactory(session);
+    }
+
+    @AfterEach
+    void closeSession() {
+        session.close();
+    }
+
+    @Test
+    void derivedQueriesUseIndexes() {
+        BookRepository books = factory.getRepository(BookRepository.class,
+                RepositoryFragments.just(new BookRepositoryCustomImpl(session)));
+        OrderRepository orders = factory.getRepository(OrderRepository.class);
+        OrderItemRepository orderItems = factory.getRepository(OrderItemRepository.class);
+        CustomerRepository customers = factory.getRepository(CustomerRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, String> plans = new LinkedHashMap<>();
+        explain(plans, "BookRepository.findByIsbn", () -> books.findByIsbn("x"));
+        explain(plans, "BookRepository.findByCategory", () -> books.findByCategory("Fiction"));
+        explain(plans, "BookRepository.findByStockQuantityGreaterThan", () -> books.findByStockQuantityGreaterThan(0));
+        explain(plans, "BookRepository.findByIdGreaterThanOrderByIdAsc", () -> books.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(10)));
+        explain(plans, "OrderRepository.findWithItemsById", () -> orders.findWithItemsById(1L));
+        explain(plans, "OrderRepository.findWithItemsByIdInOrderByIdAsc", () -> orders.findWithItemsByIdInOrderByIdAsc(List.of(1L, 2L)));
+        explain(plans, "OrderRepository.findByCustomerId", () -> orders.findByCustomerId(1L));
+        explain(plans, "OrderRepository.findByStatus", () -> orders.findByStatus(OrderStatus.SHIPPED));
+        explain(plans, "OrderRepository.findByOrderDateBetween", () -> orders.findByOrderDateBetween(now.minusDays(1), now));
+        explain(plans, "OrderRepository.findByCustomerIdOrderByOrderDateDesc", () -> orders.findByCustomerIdOrderByOrderDateDesc(1L));
+        explain(plans, "OrderRepository.findExpiredPendingIds", () -> orders.findExpiredPendingIds(now, 0, 1, Limit.of(10)));
+        explain(plans, "OrderRepository.countExpiredPending", () -> orders.countExpiredPending(now));
+        explain(plans, "OrderItemRepository.findByOrderId", () -> orderItems.findByOrderId(1L));
+        explain(plans, "OrderItemRepository.findByBookId", () -> orderItems.findByBookId(1L));
+        explain(plans, "CustomerRepository.findByEmail", () -> customers.findByEmail("x@example.com"));
+        explain(plans, "CustomerRepository.existsByEmail", () -> customers.existsByEmail("x@example.com"));
+
+        Set<String> derived = new TreeSet<>();
+        for (Class<?> repository : List.of(BookRepository.class, OrderRepository.class, OrderItemRepository.class,
+                CustomerRepository.class)) {
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isAnnotationPresent(Query.class))
+                    .filter(method -> !overridesCrudMethod(method))
+                    .map(Method::getName)
+                    .forEach(name -> derived.add(repository.getSimpleName() + "." + name));
+        }
+        Set<String> covered = new TreeSet<>(plans.keySet());
+        covered.addAll(EXEMPT);
+        assertThat(covered).as("derived queries without a plan check").containsAll(derived);
+
+        Map<String, String> scans = plans.entrySet().stream()
+                .filter(entry -> entry.getValue().contains(".tableScan"))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        assertThat(scans).as("queries that scan a whole table").isEmpty();
+    }
+
+    private static boolean overridesCrudMethod(Method method) {
+        try {
+            JpaRepository.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private void explain(Map<String, String> plans, String name, Runnable query) {
+        captured.clear();
+        query.run();
+        assertThat(captured).as(name).hasSize(1);
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + captured.get(0), String.class));
+        plans.put(name, plan);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.dto.FacetCountDTO;
+import com.example.bookstore.repository.BookFacets;
+import com.example.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogFacetIndexTest {
+
+    private static final BigDecimal[] PRICE_BANDS = {new BigDecimal("10"), new BigDecimal("20"), new BigDecimal("50")};
+
+    private CatalogFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogFacetIndex(null, PRICE_BANDS, 20);
+        index.index(book(1L, "Fantasy", "Allen", 1954, "8.99", 5));
+        index.index(book(2L, "Fantasy", "Allen", 1977, "14.50", 0));
+        index.index(book(3L, "Biography", "Penguin", 1977, "24.00", 2));
+        index.index(book(4L, "Programming", "Prentice", 2008, "42.00", 7));
+        index.index(book(5L, "Programming", "Penguin", 2018, "55.00", 1));
+    }
+
+    @Test
+    void facetsCombineWithAndValuesWithOr() {
+        assertThat(filter(query(Set.of("Fantasy", "Programming"), null, null, null, null, true)).bookIds())
+                .containsExactly(1L, 4L, 5L);
+        assertThat(filter(query(null, Set.of("Penguin"), Set.of("20-50"), null, null, null)).bookIds())
+                .containsExactly(3L);
+        assertThat(filter(query(null, null, null, 1970, 2010, null)).bookIds()).containsExactly(2L, 3L, 4L);
+        assertThat(filter(query(null, null, null, 2000, null, null)).bookIds()).containsExactly(4L, 5L);
+        assertThat(filter(query(Set.of("Poetry"), null, null, null, null, null)).total()).isZero();
+        assertThat(filter(query(null, null, null, null, null, null)).total()).isEqualTo(5);
+    }
+
+    @Test
+    void eachFacetIsCountedAgainstTheOtherFacetsFilters() {
+        FacetHits hits = filter(query(Set.of("Fantasy"), null, null, null, null, true));
+        assertThat(hits.bookIds()).containsExactly(1L);
+
+        // Categories ignore the category selection but honour availability
+        assertThat(hits.facets().get(CatalogFacetIndex.CATEGORY)).containsExactly(
+                new FacetCountDTO("Programming", 2), new FacetCountDTO("Biography", 1), new FacetCountDTO("Fantasy", 1));
+        // Availability ignores itself but honours the category
+        assertThat(hits.facets().get(CatalogFacetIndex.IN_STOCK)).containsExactlyInAnyOrder(
+                new FacetCountDTO("true", 1), new FacetCountDTO("false", 1));
+        assertThat(hits.facets().get(CatalogFacetIndex.PRICE_BAND)).containsExactly(new FacetCountDTO("0-10", 1));
+        assertThat(hits.facets().get(CatalogFacetIndex.YEAR)).containsExactly(new FacetCountDTO("1954", 1));
+    }
+
+    @Test
+    void pagesAreSlicesInIdOrder() {
+        FacetQuery everything = query(null, null, null, null, null, null);
+        assertThat(index.filter(everything, 0, 2).bookIds()).containsExactly(1L, 2L);
+        assertThat(index.filter(everything, 4, 2).bookIds()).containsExactly(5L);
+        assertThat(index.filter(everything, 5, 2).bookIds()).isEmpty();
+        assertThat(index.filter(everything, 4, 2).total()).isEqualTo(5);
+    }
+
+    @Test
+    void reindexAndRemoveMoveBooksBetweenValues() {
+        index.index(book(2L, "Fantasy", "Allen", 1977, "14.50", 3));
+        index.index(book(4L, "Biography", "Prentice", 2008, "9.00", 7));
+        assertThat(filter(query(null, null, null, null, null, true)).total()).isEqualTo(5);
+        assertThat(filter(query(Set.of("Biography"), null, Set.of("0-10"), null, null, null)).bookIds()).containsExactly(4L);
+        assertThat(filter(query(Set.of("Programming"), null, null, null, null, null)).bookIds()).containsExactly(5L);
+
+        index.remove(5L);
+        FacetHits hits = filter(query(null, null, null, null, null, null));
+        assertThat(hits.total()).isEqualTo(4);
+        assertThat(hits.facets().get(CatalogFacetIndex.CATEGORY)).extracting(FacetCountDTO::getValue)
+                .doesNotContain("Programming");
+    }
+
+    @Test
+    void changesDuringRebuildSurviveTheSwap() {
+        // The rebuild reads book 1 in stock, then it sells out and book 9 is added while the rebuild runs
+        BookFacets stale = book(1L, "Fantasy", "Allen", 1954, "8.99", 5);
+        Stream<BookFacets> snapshot = Stream.of(stale, book(4L, "Programming", "Prentice", 2008, "42.00", 7))
+                .peek(row -> {
+                    if (row == stale) {
+                        index.index(book(1L, "Fantasy", "Allen", 1954, "8.99", 0));
+                        index.index(book(9L, "Poetry", "Faber", 2001, "12.00", 3));
+                    }
+                });
+        index = new CatalogFacetIndex(Stubs.answering(BookRepository.class, "streamAllFacets", snapshot),
+                PRICE_BANDS, 20);
+        index.rebuild();
+
+        assertThat(index.inStock(1L)).contains(false);
+        assertThat(filter(query(Set.of("Poetry"), null, null, null, null, null)).bookIds()).containsExactly(9L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void unknownPriceBandIsRejected() {
+        assertThat(index.priceBand(new BigDecimal("50"))).isEqualTo("50+");
+        assertThatThrownBy(() -> filter(query(null, null, Set.of("5-15"), null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void countsOverLargeCatalogAddUp() {
+        CatalogFacetIndex large = new CatalogFacetIndex(null, PRICE_BANDS, 20);
+        Random random = new Random(42);
+        String[] categories = {"Fiction", "Fantasy", "Science Fiction", "Romance", "Programming", "History"};
+        IntStream.rangeClosed(1, 200_000).forEach(id -> large.index(book((long) id,
+                categories[random.nextInt(categories.length)], "Publisher " + random.nextInt(200),
+                1900 + random.nextInt(125), random.nextInt(80) + ".99", random.nextInt(4))));
+
+        FacetHits narrow = large.filter(
+                query(Set.of("Fantasy", "History"), null, Set.of("10-20", "20-50"), 1950, 2000, true), 0, 20);
+        FacetHits broad = large.filter(query(null, null, null, null, null, true), 0, 20);
+        assertThat(narrow.bookIds()).hasSize(20);
+        assertThat(narrow.facets().get(CatalogFacetIndex.PUBLISHER)).hasSize(20);
+        assertThat(broad.facets().get(CatalogFacetIndex.IN_STOCK)).extracting(FacetCountDTO::getValue)
+                .containsExactly("true", "false");
+        assertThat(broad.facets().get(CatalogFacetIndex.CATEGORY).stream().mapToInt(FacetCountDTO::getCount).sum())
+                .isEqualTo(broad.total());
+    }
+
+    private FacetHits filter(FacetQuery query) {
+        return index.filter(query, 0, 100);
+    }
+
+    private static FacetQuery query(Set<String> categories, Set<String> publishers, Set<String> priceBands,
+                                    Integer yearFrom, Integer yearTo, Boolean inStock) {
+        return new FacetQuery(categories, publishers, priceBands, yearFrom, yearTo, inStock);
+    }
+
+    private static BookFacets book(Long id, String category, String publisher, int year, String price, int stock) {
+        return new BookFacets(id, category, publisher, year, new BigDecimal(price), stock);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bookstore.search;
+
+import com.example.bookstore.entity.Book;
+import com.example.bookstore.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSearchIndexTest {
+
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogSearchIndex(null, null);
+        index.index(book(1L, "The Hobbit", "J.R.R. Tolkien", "Fantasy", "A hobbit's journey"));
+        index.index(book(2L, "The Silmarillion", "J.R.R. Tolkien", "Fantasy", "Myths of Middle-earth"));
+        index.index(book(3L, "Tolkien: A Biography", "Humphrey Carpenter", "Biography", "The life of Tolkien"));
+        index.index(book(4L, "Clean Code", "Robert C. Martin", "Programming", "Agile craftsmanship"));
+    }
+
+    @Test
+    void titleMatchesOutrankDescriptionMatches() {
+        SearchHits hits = index.search("hobbit", 0, 10);
+        assertThat(hits.bookIds()).containsExactly(1L);
+
+        SearchHits tolkien = index.search("tolkien", 0, 10);
+        assertThat(tolkien.total()).isEqualTo(3);
+        assertThat(tolkien.bookIds().get(0)).isEqualTo(3L);
+    }
+
+    @Test
+    void everyTokenMustMatchAndMayBePrefix() {
+        assertThat(index.search("silm tolk", 0, 10).bookIds()).containsExactly(2L);
+        assertThat(index.search("tolkien programming", 0, 10).total()).isZero();
+        assertThat(index.search("PROG", 0, 10).bookIds()).containsExactly(4L);
+    }
+
+    @Test
+    void pagesAreSlicesOfTheRanking() {
+        SearchHits first = index.search("tolkien", 0, 2);
+        SearchHits second = index.search("tolkien", 2, 2);
+        assertThat(first.bookIds()).hasSize(2);
+        assertThat(second.bookIds()).hasSize(1).doesNotContainAnyElementsOf(first.bookIds());
+        assertThat(second.total()).isEqualTo(3);
+    }
+
+    @Test
+    void reindexAndRemoveReplacePostings() {
+        index.index(book(4L, "Refactoring", "Martin Fowler", "Programming", null));
+        assertThat(index.search("clean", 0, 10).total()).isZero();
+        assertThat(index.search("fowler", 0, 10).bookIds()).containsExactly(4L);
+
+        index.remove(4L);
+        assertThat(index.search("programming", 0, 10).total()).isZero();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void olderUpdatesArriveTooLateToApply() {
+        index.index(book(5L, "Dune", 3L));
+        index.index(book(5L, "Dune Messiah", 2L));
+        assertThat(index.search("messiah", 0, 10).total()).isZero();
+
+        index.remove(5L);
+        index.index(book(5L, "Dune", 4L));
+        assertThat(index.search("dune", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void updatesDuringRebuildSurviveTheSwap() {
+        // The rebuild reads book 1 as it was before a rename that commits while the rebuild runs
+        Book stale = book(1L, "The Hobbit", 1L);
+        Stream<Book> snapshot = Stream.of(stale, book(4L, "Clean Code", 1L))
+                .peek(book -> {
+                    if (book == stale) {
+                        index.index(book(1L, "There and Back Again", 2L));
+                        index.index(book(9L, "Added Meanwhile", 1L));
+                    }
+                });
+        index = new CatalogSearchIndex(Stubs.answering(BookRepository.class, "streamAllByOrderByIdAsc", snapshot),
+                Stubs.ignoring(EntityManager.class));
+        index.rebuild();
+
+        assertThat(index.search("hobbit", 0, 10).total()).isZero();
+        assertThat(index.search("there back", 0, 10).bookIds()).containsExactly(1L);
+        assertThat(index.search("meanwhile", 0, 10).bookIds()).containsExactly(9L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    private static Book book(Long id, String title, String author, String category, String description) {
+        return new Book(id, title, author, "isbn-" + id, BigDecimal.TEN, 1, description, category, "Publisher", 2000, null);
+    }
+
+    private static Book book(Long id, String title, Long version) {
+        return new Book(id, title, "Author", "isbn-" + id, BigDecimal.TEN, 1, null, "Fiction", "Publisher", 2000, version);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookstore.search;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Interface stubs for the index tests, which build their indexes without a database.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    // Answers the named method with the given result and fails on any other call
+    @SuppressWarnings("unchecked")
+    static <T> T answering(Class<T> type, String methodName, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return result;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    // Accepts and ignores every call
+    @SuppressWarnings("unchecked")
+    static <T> T ignoring(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.ImportProgressDTO;
+import com.example.bookstore.dto.ImportReportDTO;
+import com.example.bookstore.feed.BookFeedFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "bookstore.import.chunk-size=2")
+class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void csvRowsAreUpsertedByIsbnAndInvalidRowsReported() throws Exception {
+        String prefix = "import-" + System.nanoTime();
+        BookDTO existing = bookService.createBook(BookServiceTest.newBook(prefix + "-a"));
+        bookService.getBookByIsbn(existing.getIsbn());
+
+        String csv = "isbn,title,author,price,stockQuantity,category\n" +
+                prefix + "-a,Updated Title,Someone,12.50,7,Fiction\n" +
+                prefix + "-b,Brand New Quokka,Someone,3.00,1,Fiction\n" +
+                prefix + "-c,,Someone,3.00,1,Fiction\n" +
+                prefix + "-d,Priced Wrong,Someone,-1,1,Fiction\n" +
+                prefix + "-e,First Take,Someone,4.00,2,Fiction\n" +
+                prefix + "-e,Second Take,Someone,4.00,3,Fiction\n";
+
+        List<ImportProgressDTO> progress = new ArrayList<>();
+        ImportReportDTO report = runImport(csv, BookFeedFormat.CSV, progress);
+
+        assertThat(report.getRowsRead()).isEqualTo(6);
+        assertThat(report.getInserted()).isEqualTo(2);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getSuperseded()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting("line").containsExactly(4L, 5L);
+        assertThat(report.getErrors().get(0).getMessage()).isEqualTo("title: Title is required");
+        assertThat(report.getErrors().get(1).getMessage()).isEqualTo("price: Price must be greater than 0");
+        assertThat(progress).isNotEmpty();
+        assertThat(progress.get(progress.size() - 1).getRowsRead()).isEqualTo(6);
+
+        assertThat(bookService.getBookByIsbn(prefix + "-a").getTitle()).isEqualTo("Updated Title");
+        assertThat(bookService.getBookByIsbn(prefix + "-e").getStockQuantity()).isEqualTo(3);
+        assertThat(bookService.searchBooks("quokka", 0, 10).getItems())
+                .extracting(BookDTO::getIsbn).contains(prefix + "-b");
+    }
+
+    @Test
+    void ndjsonMalformedLinesAreRejectedAndErrorReportIsCapped() throws Exception {
+        String prefix = "ndjson-" + System.nanoTime();
+        StringBuilder feed = new StringBuilder();
+        feed.append("{\"isbn\":\"").append(prefix).append("\",\"title\":\"T\",\"author\":\"A\",\"price\":1.0,\"stockQuantity\":1}\n");
+        for (int i = 0; i < 1_005; i++) {
+            feed.append("{not json\n");
+        }
+
+        ImportReportDTO report = runImport(feed.toString(), BookFeedFormat.NDJSON, new ArrayList<>());
+
+        assertThat(report.getInserted()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(1_005);
+        assertThat(report.getErrors()).hasSize(1_000);
+        assertThat(report.isErrorsTruncated()).isTrue();
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(2);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("Malformed JSON");
+    }
+
+    private ImportReportDTO runImport(String feed, BookFeedFormat format, List<ImportProgressDTO> progress) throws Exception {
+        return bookImportService.importBooks(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)),
+                format, progress::add);
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.cache.BookCache;
+import com.example.bookstore.cache.NegativeLookupCaches;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CacheStatsDTO;
+import com.example.bookstore.dto.CursorPageDTO;
+import com.example.bookstore.dto.FacetCountDTO;
+import com.example.bookstore.dto.FilterResultDTO;
+import com.example.bookstore.dto.SearchResultDTO;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.search.CatalogFacetIndex;
+import com.example.bookstore.search.FacetQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.ConfigurableTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BookServiceTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private NegativeLookupCaches negativeLookupCaches;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void keysetPagesCoverCatalogWithoutDuplicates() {
+        for (int i = 0; i < 7; i++) {
+            bookService.createBook(newBook("page-" + System.nanoTime() + "-" + i));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        Long cursor = null;
+        do {
+            CursorPageDTO<BookDTO> page = bookService.getBooksPage(cursor, 3);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(3);
+            page.getItems().forEach(book -> seen.add(book.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).isSorted();
+        assertThat(new HashSet<>(seen)).hasSize(seen.size());
+        assertThat((long) seen.size()).isEqualTo(bookRepository.count());
+    }
+
+    @Test
+    void pageSizeIsBounded() {
+        CursorPageDTO<BookDTO> page = bookService.getBooksPage(null, 1_000_000);
+        assertThat(page.getItems()).hasSizeLessThanOrEqualTo(BookService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void exportWritesOneJsonLinePerBook() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookService.exportBooks(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat((long) lines.length).isEqualTo(bookRepository.count());
+        Set<String> distinct = new HashSet<>(List.of(lines));
+        assertThat(distinct).hasSize(lines.length);
+        assertThat(lines[0]).startsWith("{").contains("\"isbn\"");
+    }
+
+    @Test
+    void lookupsAreServedFromCacheUntilInvalidated() {
+        BookDTO created = bookService.createBook(newBook("cache-" + System.nanoTime()));
+
+        bookService.getBookById(created.getId());
+        long hitsBefore = byIdStats().getHitCount();
+        bookService.getBookById(created.getId());
+        bookService.getBookByIsbn(created.getIsbn());
+        assertThat(byIdStats().getHitCount()).isEqualTo(hitsBefore + 2);
+
+        created.setTitle("Renamed");
+        created.setIsbn(created.getIsbn() + "-v2");
+        bookService.updateBook(created.getId(), created);
+        assertThat(bookService.getBookById(created.getId()).getTitle()).isEqualTo("Renamed");
+        assertThat(bookService.getBookByIsbn(created.getIsbn()).getTitle()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void cacheHitsRunWithoutATransaction() {
+        BookDTO created = bookService.createBook(newBook("cache-tx-" + System.nanoTime()));
+        bookService.getBookById(created.getId());
+        bookService.getBookByIsbn(created.getIsbn());
+
+        // Begun on this thread only: scheduled jobs run transactions of their own meanwhile
+        Thread caller = Thread.currentThread();
+        AtomicInteger begun = new AtomicInteger();
+        TransactionExecutionListener listener = new TransactionExecutionListener() {
+            @Override
+            public void beforeBegin(TransactionExecution transaction) {
+                if (Thread.currentThread() == caller) {
+                    begun.incrementAndGet();
+                }
+            }
+        };
+        Collection<TransactionExecutionListener> listeners =
+                ((ConfigurableTransactionManager) transactionManager).getTransactionExecutionListeners();
+        listeners.add(listener);
+        try {
+            bookService.getBookById(created.getId());
+            bookService.getBookByIsbn(created.getIsbn());
+            bookService.getBookVersion(created.getId());
+            assertThat(begun).hasValue(0);
+
+            bookCache.invalidate(List.of(created.getId()));
+            assertThat(bookService.getBookById(created.getId()).getIsbn()).isEqualTo(created.getIsbn());
+            assertThat(begun).hasValue(1);
+        } finally {
+            listeners.remove(listener);
+        }
+    }
+
+    @Test
+    void cachedStockFollowsOrdersAndAdjustments() {
+        Long bookId = bookService.createBook(newBook("cache-stock-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+
+        Long orderId = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(9);
+
+        bookService.updateStock(bookId, 5);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(14);
+
+        orderService.cancelOrder(orderId);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(15);
+    }
+
+    @Test
+    void callersCannotMutateCachedValue() {
+        Long bookId = bookService.createBook(newBook("cache-copy-" + System.nanoTime())).getId();
+        bookService.getBookById(bookId).setTitle("Tampered");
+        assertThat(bookService.getBookById(bookId).getTitle()).startsWith("Test Book");
+    }
+
+    @Test
+    void missingIsbnsAreAnsweredWithoutQueriesUntilCreated() {
+        String isbn = "missing-" + System.nanoTime();
+        assertThatThrownBy(() -> bookService.getBookByIsbn(isbn))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .satisfies(ex -> assertThat(ex.getStackTrace()).isEmpty());
+
+        // Ruled out by the filter or, for a false positive, by the miss the first lookup recorded
+        long answeredBefore = missingIsbnStats().getHitCount();
+        assertThatThrownBy(() -> bookService.getBookByIsbn(isbn)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(missingIsbnStats().getHitCount()).isEqualTo(answeredBefore + 1);
+
+        bookService.createBook(newBook(isbn));
+        assertThat(bookService.getBookByIsbn(isbn).getIsbn()).isEqualTo(isbn);
+    }
+
+    @Test
+    void searchIndexFollowsCommittedWrites() {
+        String marker = "zq" + System.nanoTime();
+        BookDTO book = newBook("search-" + marker);
+        book.setTitle("Distributed " + marker + " Systems");
+        Long bookId = bookService.createBook(book).getId();
+
+        SearchResultDTO result = bookService.searchBooks(marker.substring(0, 8), 0, 10);
+        assertThat(result.getItems()).extracting(BookDTO::getId).contains(bookId);
+
+        book.setTitle("Renamed");
+        bookService.updateBook(bookId, book);
+        assertThat(bookService.searchBooks(marker, 0, 10).getTotalHits()).isZero();
+
+        bookService.deleteBook(bookId);
+        assertThat(bookService.searchBooks("renamed", 0, 10).getItems()).extracting(BookDTO::getId).doesNotContain(bookId);
+    }
+
+    @Test
+    void facetFilterFollowsCommittedWritesAndStock() {
+        String category = "facet-" + System.nanoTime();
+        BookDTO book = newBook(category + "-1");
+        book.setCategory(category);
+        book.setPublisher("Facet Press");
+        book.setStockQuantity(1);
+        Long bookId = bookService.createBook(book).getId();
+        FacetQuery inStock = new FacetQuery(Set.of(category), null, null, null, null, true);
+
+        FilterResultDTO result = bookService.filterBooks(inStock, 0, 10);
+        assertThat(result.getItems()).extracting(BookDTO::getId).containsExactly(bookId);
+        assertThat(result.getFacets().get(CatalogFacetIndex.PUBLISHER)).extracting(FacetCountDTO::getValue)
+                .contains("Facet Press");
+
+        // Stock moves through bulk updates; the availability bitmap follows them
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long orderId = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        assertThat(bookService.filterBooks(inStock, 0, 10).getTotalHits()).isZero();
+        orderService.cancelOrder(orderId);
+        assertThat(bookService.filterBooks(inStock, 0, 10).getTotalHits()).isEqualTo(1);
+
+        book.setCategory(category + "-moved");
+        bookService.updateBook(bookId, book);
+        assertThat(bookService.filterBooks(inStock, 0, 10).getTotalHits()).isZero();
+    }
+
+    @Test
+    void indexedSearchFindsTheBooksALikeScanFinds() {
+        // A word no other test uses, so both searches only see the books created here
+        String marker = "cryptonomicon" + System.nanoTime();
+        List<Long> matching = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            BookDTO book = newBook(marker + "-" + i);
+            book.setTitle("Volume " + i + (i % 10 == 0 ? " " + marker : " Anthology"));
+            Long id = bookService.createBook(book).getId();
+            if (i % 10 == 0) {
+                matching.add(id);
+            }
+        }
+
+        assertThat(bookService.searchBooksByTitle(marker)).extracting(BookDTO::getId)
+                .containsExactlyInAnyOrderElementsOf(matching);
+        assertThat(bookService.searchBooks(marker, 0, 100).getItems()).extracting(BookDTO::getId)
+                .containsExactlyInAnyOrderElementsOf(matching);
+    }
+
+    private CacheStatsDTO byIdStats() {
+        return bookCache.stats().stream()
+                .filter(stats -> stats.getName().equals("books.byId"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private CacheStatsDTO missingIsbnStats() {
+        return negativeLookupCaches.isbns().stats();
+    }
+
+    static BookDTO newBook(String isbn) {
+        BookDTO dto = new BookDTO();
+        dto.setTitle("Test Book " + isbn);
+        dto.setAuthor("Test Author");
+        dto.setIsbn(isbn);
+        dto.setPrice(new BigDecimal("9.99"));
+        dto.setStockQuantity(10);
+        dto.setCategory("Test");
+        return dto;
+    }
+}
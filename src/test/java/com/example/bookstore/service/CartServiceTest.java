@@ -0,0 +1,165 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.CartDTO;
+import com.example.bookstore.dto.CartItemDTO;
+import com.example.bookstore.dto.CartItemDTO.Availability;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.exception.InsufficientStockException;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.metrics.SqlStatementsPerRequestFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class CartServiceTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SqlStatementsPerRequestFilter sqlStatementsPerRequestFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void itemsCarryStockHintsFromTheCache() {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = bookService.createBook(BookServiceTest.newBook("cart-hint-" + System.nanoTime())).getId();
+        bookService.getBookById(bookId);
+
+        assertThat(item(cartService.addItem(customerId, bookId, 4))).satisfies(item -> {
+            assertThat(item.getAvailability()).isEqualTo(Availability.AVAILABLE);
+            assertThat(item.getStockHint()).isEqualTo(10);
+        });
+        assertThat(item(cartService.setQuantity(customerId, bookId, 12)).getAvailability())
+                .isEqualTo(Availability.INSUFFICIENT);
+        assertThat(cartService.removeItem(customerId, bookId).getItems()).isEmpty();
+
+        assertThatThrownBy(() -> cartService.addItem(customerId, Long.MAX_VALUE, 1))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> cartService.addItem(Long.MAX_VALUE, bookId, 1))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void checkoutPlacesTheOrderAndEmptiesTheCart() {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long first = bookService.createBook(BookServiceTest.newBook("cart-first-" + System.nanoTime())).getId();
+        Long second = bookService.createBook(BookServiceTest.newBook("cart-second-" + System.nanoTime())).getId();
+        cartService.addItem(customerId, first, 2);
+        cartService.addItem(customerId, second, 11);
+
+        // Not enough of the second book: nothing is reserved and the cart stays as it was
+        assertThatThrownBy(() -> cartService.checkout(customerId, "1 Cart Lane"))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(cartService.getCart(customerId).getTotalQuantity()).isEqualTo(13);
+
+        cartService.setQuantity(customerId, second, 3);
+        OrderDTO order = cartService.checkout(customerId, "1 Cart Lane");
+        assertThat(order.getItems()).hasSize(2);
+        assertThat(bookService.getBookById(first).getStockQuantity()).isEqualTo(8);
+        assertThat(bookService.getBookById(second).getStockQuantity()).isEqualTo(7);
+        assertThat(cartService.getCart(customerId).getItems()).isEmpty();
+        assertThatThrownBy(() -> cartService.checkout(customerId, "1 Cart Lane"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentCheckoutsOfOneCartPlaceOneOrder() throws Exception {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = bookService.createBook(BookServiceTest.newBook("cart-twice-" + System.nanoTime())).getId();
+        cartService.addItem(customerId, bookId, 3);
+
+        // A double click: both requests start checkout of the same cart at once
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderDTO>> checkouts = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                return cartService.checkout(customerId, "1 Cart Lane");
+            }));
+        }
+        start.countDown();
+        int placed = 0;
+        for (Future<OrderDTO> checkout : checkouts) {
+            try {
+                checkout.get();
+                placed++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+        executor.shutdown();
+
+        assertThat(placed).isEqualTo(1);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(7);
+        assertThat(cartService.getCart(customerId).getItems()).isEmpty();
+    }
+
+    @Test
+    void cartTrafficIssuesNoSql() throws Exception {
+        List<Long> customers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            customers.add(customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId());
+        }
+        List<Long> books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Long bookId = bookService.createBook(BookServiceTest.newBook("cart-load-" + System.nanoTime())).getId();
+            bookService.getBookById(bookId);
+            books.add(bookId);
+        }
+        int operations = 200_000;
+        Runnable traffic = () -> {
+            for (int i = 0; i < operations; i++) {
+                Long customerId = customers.get(i % customers.size());
+                // Each customer in turn adds a book twice, views the cart and removes the book again
+                int step = i / customers.size();
+                Long bookId = books.get((step / 4) % books.size());
+                switch (step % 4) {
+                    case 0, 1 -> cartService.addItem(customerId, bookId, 1);
+                    case 2 -> cartService.getCart(customerId);
+                    default -> cartService.removeItem(customerId, bookId);
+                }
+            }
+        };
+
+        assertThat(countStatements(traffic)).isZero();
+    }
+
+    private static CartItemDTO item(CartDTO cart) {
+        assertThat(cart.getItems()).hasSize(1);
+        return cart.getItems().get(0);
+    }
+
+    private double countStatements(Runnable work) throws Exception {
+        String probe = "/api/carts/probe-" + System.nanoTime();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", probe);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, probe);
+        sqlStatementsPerRequestFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> work.run());
+        return meterRegistry.get("bookstore.sql.statements.per.request").tag("uri", probe).summary().totalAmount();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.cache.NegativeLookupCaches;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.exception.ResourceInUseException;
+import com.example.bookstore.exception.ResourceNotFoundException;
+import com.example.bookstore.metrics.SqlStatementsPerRequestFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CustomerServiceTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private NegativeLookupCaches negativeLookupCaches;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlStatementsPerRequestFilter sqlStatementsPerRequestFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void createdCustomersAreFoundRightAfterTheirEmailMissed() {
+        CustomerDTO customer = StockReservationServiceTest.newCustomer();
+        assertThatThrownBy(() -> customerService.getCustomerByEmail(customer.getEmail()))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        Long id = customerService.createCustomer(customer).getId();
+        assertThat(customerService.getCustomerByEmail(customer.getEmail()).getId()).isEqualTo(id);
+        assertThat(customerService.getCustomerById(id).getEmail()).isEqualTo(customer.getEmail());
+
+        customer.setEmail("renamed-" + customer.getEmail());
+        customerService.updateCustomer(id, customer);
+        assertThat(customerService.getCustomerByEmail(customer.getEmail()).getId()).isEqualTo(id);
+    }
+
+    @Test
+    void missStormIsAnsweredWithoutQueries() {
+        int lookups = 10_000;
+        String prefix = "scraper-" + System.nanoTime() + "-";
+        long answeredBefore = negativeLookupCaches.emails().stats().getHitCount();
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < lookups / 2; i++) {
+                try {
+                    customerService.getCustomerByEmail(prefix + i + "@example.com");
+                } catch (ResourceNotFoundException expected) {
+                    // the 404 a scraper gets
+                }
+            }
+        }
+
+        long answered = negativeLookupCaches.emails().stats().getHitCount() - answeredBefore;
+        // The filter's false positives reach the database once, then their miss is cached
+        assertThat(answered).isGreaterThan(lookups * 98L / 100);
+    }
+
+    @Test
+    void customerWithLongHistoryIsDeletedInAFewStatements() throws Exception {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("history-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        insertHistory(customerId, bookId, 5_000, 3_000_000_000L, "CANCELLED", "DELIVERED");
+
+        double statements = countStatements("/api/customers/delete-probe",
+                () -> customerService.deleteCustomer(customerId));
+
+        // Locking the counted orders, reading the delivered lines and the delete, none of them per order
+        assertThat(statements).isLessThanOrEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from orders where customer_id = ?", Long.class,
+                customerId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_items where book_id = ?", Long.class,
+                bookId)).isZero();
+        assertThatThrownBy(() -> customerService.getCustomerById(customerId))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void anonymizingKeepsOrdersAndDropsPersonalData() throws Exception {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("anonymize-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        insertHistory(customerId, bookId, 5_000, 3_100_000_000L, "DELIVERED", "CANCELLED");
+
+        double statements = countStatements("/api/customers/anonymize-probe",
+                () -> customerService.anonymizeCustomer(customerId));
+
+        // Two updates and the read of the result
+        assertThat(statements).isLessThanOrEqualTo(3);
+        CustomerDTO anonymized = customerService.getCustomerById(customerId);
+        assertThat(anonymized.getEmail()).isEqualTo("anonymized-" + customerId + "@invalid");
+        assertThat(anonymized.getCity()).isNull();
+        assertThat(customerService.getCustomerByEmail(anonymized.getEmail()).getId()).isEqualTo(customerId);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from orders where customer_id = ? and shipping_address is null", Long.class,
+                customerId)).isEqualTo(5_000);
+    }
+
+    @Test
+    void deletingACustomerTakesTheirDeliveredOrdersOutOfTheSales() {
+        String category = "delivered-" + System.nanoTime();
+        BookDTO book = BookServiceTest.newBook(category);
+        book.setCategory(category);
+        Long bookId = bookService.createBook(book).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long delivered = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        orderService.updateOrderStatus(delivered, OrderStatus.DELIVERED);
+        orderService.cancelOrder(orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId());
+        assertThat(categoryUnits(category)).isEqualTo(1);
+
+        customerService.deleteCustomer(customerId);
+
+        assertThat(categoryUnits(category)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from orders where customer_id = ?", Long.class,
+                customerId)).isZero();
+    }
+
+    @Test
+    void customersWithOpenOrdersAndOrderedBooksAreNotDeleted() {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("in-use-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+
+        assertThatThrownBy(() -> customerService.deleteCustomer(customerId))
+                .isInstanceOf(ResourceInUseException.class);
+        assertThatThrownBy(() -> bookService.deleteBook(bookId))
+                .isInstanceOf(ResourceInUseException.class);
+        assertThat(customerService.getCustomerById(customerId).getId()).isEqualTo(customerId);
+        assertThatThrownBy(() -> customerService.deleteCustomer(Long.MAX_VALUE))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private long categoryUnits(String category) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(units), 0) from sales_daily_category where category = ?",
+                Long.class, category);
+    }
+
+    // Closed orders with one line each, taking the statuses in turn, written directly; ids far above what the
+    // sequences hand out in a test run
+    private void insertHistory(Long customerId, Long bookId, int orders, long idBase, String... statuses) {
+        Timestamp placed = Timestamp.valueOf("2024-01-01 00:00:00");
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            long id = idBase + i;
+            orderRows.add(new Object[]{id, customerId, statuses[i % statuses.length], placed});
+            itemRows.add(new Object[]{id, id, bookId});
+        }
+        jdbcTemplate.batchUpdate("insert into orders (id, customer_id, total_amount, status, order_date, "
+                + "shipping_address, version) values (?, ?, 9.99, ?, ?, '1 Test Way', 0)", orderRows);
+        jdbcTemplate.batchUpdate("insert into order_items (id, order_id, book_id, quantity, price, subtotal, category) "
+                + "values (?, ?, ?, 1, 9.99, 9.99, 'Fiction')", itemRows);
+    }
+
+    private double countStatements(String uri, Runnable work) throws Exception {
+        String probe = uri + "-" + System.nanoTime();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", probe);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, probe);
+        sqlStatementsPerRequestFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> work.run());
+        return meterRegistry.get("bookstore.sql.statements.per.request").tag("uri", probe).summary().totalAmount();
+    }
+}
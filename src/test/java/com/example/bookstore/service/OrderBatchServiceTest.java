@@ -0,0 +1,256 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BulkStatusResultDTO;
+import com.example.bookstore.dto.BulkStatusUpdateDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderStatusChangeDTO;
+import com.example.bookstore.dto.OrderStatusChangeDTO.Outcome;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.exception.InsufficientStockException;
+import com.example.bookstore.metrics.SqlStatementsPerRequestFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OrderBatchServiceTest {
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlStatementsPerRequestFilter sqlStatementsPerRequestFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void warehouseWaveOfTenThousandOrders() throws Exception {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        long base = 4_000_000_000L;
+        int wave = 10_000;
+        insertOrders(customerId, base, 3 * wave, "CONFIRMED", LocalDateTime.of(2024, 3, 1, 12, 0));
+
+        // Two waves shipped first, so the predicate below matches more than one request may move; half of the
+        // third one is PROCESSING already
+        for (int i = 0; i < 2; i++) {
+            orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.SHIPPED, ids(base + i * wave, wave),
+                    null, null, null));
+        }
+        long measured = base + 2 * wave;
+        orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.PROCESSING, ids(measured, wave / 2),
+                null, null, null));
+        AtomicReference<BulkStatusResultDTO> result = new AtomicReference<>();
+        double statements = countStatements(() -> result.set(orderBatchService.updateStatuses(
+                new BulkStatusUpdateDTO(OrderStatus.SHIPPED, ids(measured, wave), null, null, null))));
+        BulkStatusResultDTO shipped = result.get();
+
+        assertThat(shipped.getUpdated()).isEqualTo(wave);
+        assertThat(shipped.getOrders()).extracting(OrderStatusChangeDTO::getPreviousStatus)
+                .containsOnly(OrderStatus.CONFIRMED, OrderStatus.PROCESSING);
+        // One status read and one guarded update per chunk of 1000 ids; order items are never read
+        assertThat(statements).isBetween(1.0, 2.0 * wave / 1000);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from orders where id between ? and ? "
+                + "and status = 'SHIPPED' and shipped_date is not null and delivered_date is null",
+                Long.class, measured, measured + wave - 1)).isEqualTo(wave);
+
+        BulkStatusResultDTO delivered = orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.DELIVERED,
+                null, OrderStatus.SHIPPED, LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(2024, 3, 2, 0, 0)));
+        assertThat(delivered.getUpdated()).isEqualTo(wave);
+        assertThat(delivered.isTruncated()).isTrue();
+    }
+
+    @Test
+    void ordersThatCannotMoveAreReportedPerId() {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("wave-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        OrderDTO placed = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        OrderDTO queued = orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        OrderDTO cancelled = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        orderService.cancelOrder(cancelled.getId());
+        OrderDTO delivered = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        orderService.updateOrderStatus(delivered.getId(), OrderStatus.DELIVERED);
+
+        BulkStatusResultDTO result = orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.SHIPPED,
+                List.of(placed.getId(), cancelled.getId(), delivered.getId(), Long.MAX_VALUE, placed.getId()),
+                null, null, null));
+
+        Map<Long, Outcome> outcomes = result.getOrders().stream()
+                .collect(Collectors.toMap(OrderStatusChangeDTO::getOrderId, OrderStatusChangeDTO::getOutcome));
+        assertThat(outcomes).containsOnly(
+                Map.entry(placed.getId(), Outcome.UPDATED),
+                Map.entry(cancelled.getId(), Outcome.NOT_ALLOWED),
+                Map.entry(delivered.getId(), Outcome.NOT_ALLOWED),
+                Map.entry(Long.MAX_VALUE, Outcome.NOT_FOUND));
+        OrderDTO shipped = orderService.getOrderById(placed.getId());
+        assertThat(shipped.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(shipped.getShippedDate()).isNotNull();
+        assertThat(shipped.getItems()).hasSize(1);
+
+        // A queued order holds no stock until intake confirms it (the intake workers may already have)
+        Outcome queuedOutcome = orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.SHIPPED,
+                List.of(queued.getId()), null, null, null)).getOrders().get(0).getOutcome();
+        OrderStatus queuedStatus = orderService.getOrderById(queued.getId()).getStatus();
+        assertThat(queuedOutcome).isEqualTo(queuedStatus == OrderStatus.SHIPPED ? Outcome.UPDATED : Outcome.NOT_ALLOWED);
+
+        assertThatThrownBy(() -> orderBatchService.updateStatuses(new BulkStatusUpdateDTO(OrderStatus.CANCELLED,
+                List.of(placed.getId()), null, null, null))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cancellingTwiceReleasesStockOnce() {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("recancel-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orderIds.add(orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId());
+        }
+        orderService.cancelOrder(orderIds.get(0));
+        orderService.cancelOrder(orderIds.get(0));
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(8);
+
+        BulkStatusResultDTO result = orderBatchService.cancelOrders(List.of(orderIds.get(0), orderIds.get(1),
+                orderIds.get(2), orderIds.get(1), Long.MAX_VALUE));
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getNotFound()).isEqualTo(1);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+        assertThat(orderBatchService.cancelOrders(orderIds).getUnchanged()).isEqualTo(3);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void nullOrderIdsAreRejected() {
+        assertThatThrownBy(() -> orderBatchService.cancelOrders(Arrays.asList(1L, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderBatchService.cancelOrders(null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderBatchService.updateStatuses(
+                new BulkStatusUpdateDTO(OrderStatus.SHIPPED, Arrays.asList(1L, null), null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stockStaysExactWhileCancellationsRaceCheckouts() throws Exception {
+        int initialStock = 300;
+        BookDTO book = BookServiceTest.newBook("race-" + System.nanoTime());
+        book.setStockQuantity(initialStock);
+        Long bookId = bookService.createBook(book).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+
+        List<Long> placed = new CopyOnWriteArrayList<>();
+        AtomicBoolean checkoutsDone = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> checkouts = new ArrayList<>();
+        List<Future<?>> cancellations = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        placed.add(orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId());
+                    } catch (InsufficientStockException e) {
+                        // sold out until cancellations give stock back
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            cancellations.add(executor.submit(() -> {
+                start.await();
+                while (!checkoutsDone.get()) {
+                    // Every other order, from every thread at once, alone and in batches
+                    List<Long> batch = new ArrayList<>();
+                    for (int i = 0; i < placed.size(); i += 2) {
+                        batch.add(placed.get(i));
+                    }
+                    if (thread == 0 && !batch.isEmpty()) {
+                        orderService.cancelOrder(batch.get(batch.size() - 1));
+                    } else {
+                        orderBatchService.cancelOrders(batch);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> checkout : checkouts) {
+            checkout.get(2, TimeUnit.MINUTES);
+        }
+        checkoutsDone.set(true);
+        for (Future<?> cancellation : cancellations) {
+            cancellation.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Map<OrderStatus, Long> statuses = jdbcTemplate.queryForList(
+                "select status from orders where customer_id = ?", String.class, customerId).stream()
+                .collect(Collectors.groupingBy(OrderStatus::valueOf, Collectors.counting()));
+        long open = statuses.getOrDefault(OrderStatus.PENDING, 0L);
+        assertThat(statuses.get(OrderStatus.CANCELLED)).isPositive();
+        assertThat(statuses.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(placed.size());
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(initialStock - open);
+    }
+
+    private double countStatements(Runnable work) throws Exception {
+        String probe = "/api/orders/status/probe-" + System.nanoTime();
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", probe);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, probe);
+        sqlStatementsPerRequestFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> work.run());
+        return meterRegistry.get("bookstore.sql.statements.per.request").tag("uri", probe).summary().totalAmount();
+    }
+
+    private static List<Long> ids(long from, int count) {
+        return LongStream.range(from, from + count).boxed().collect(Collectors.toList());
+    }
+
+    private void insertOrders(Long customerId, long idBase, int count, String status, LocalDateTime orderedAt) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{idBase + i, customerId, status, Timestamp.valueOf(orderedAt)});
+        }
+        jdbcTemplate.batchUpdate("insert into orders (id, customer_id, total_amount, status, order_date, version) "
+                + "values (?, ?, 9.99, ?, ?, 0)", rows);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Workers are disabled so each test drains the outbox explicitly
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class OrderIntakeServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 150;
+    private static final int PARTITIONS = 2;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Test
+    void flashSaleIsAcceptedThenSettledWithoutOverselling() throws Exception {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long asyncBookId = createBook("flash-async-");
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        load(() -> orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, asyncBookId)));
+
+        drainConcurrently();
+
+        Map<OrderStatus, Long> statuses = orderService.getOrdersByCustomerId(customerId).stream()
+                .filter(order -> order.getItems().get(0).getBookId().equals(asyncBookId))
+                .collect(Collectors.groupingBy(OrderDTO::getStatus, Collectors.counting()));
+        assertThat(statuses.get(OrderStatus.CONFIRMED)).isEqualTo(INITIAL_STOCK);
+        assertThat(statuses.get(OrderStatus.CANCELLED)).isEqualTo(attempts - INITIAL_STOCK);
+        assertThat(statuses).doesNotContainKey(OrderStatus.PENDING);
+        assertThat(bookService.getBookById(asyncBookId).getStockQuantity()).isZero();
+    }
+
+    @Test
+    void queuedOrdersCannotBeMovedForward() throws Exception {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = bookService.createBook(BookServiceTest.newBook("queued-patch-" + System.nanoTime())).getId();
+        OrderDTO queued = orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+
+        // Shipping it now would skip intake and with it the stock reservation
+        assertThatThrownBy(() -> orderService.updateOrderStatus(queued.getId(), OrderStatus.SHIPPED))
+                .isInstanceOf(IllegalStateException.class);
+
+        drainConcurrently();
+        assertThat(orderService.getOrderById(queued.getId()).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(9);
+        assertThat(orderService.updateOrderStatus(queued.getId(), OrderStatus.SHIPPED).getStatus())
+                .isEqualTo(OrderStatus.SHIPPED);
+    }
+
+    @Test
+    void cancellingQueuedOrderReleasesNothingAndSkipsProcessing() throws Exception {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = bookService.createBook(BookServiceTest.newBook("queued-" + System.nanoTime())).getId();
+
+        OrderDTO queued = orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        OrderDTO kept = orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        assertThat(queued.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+
+        orderService.cancelOrder(queued.getId());
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+
+        drainConcurrently();
+        assertThat(orderService.getOrderById(queued.getId()).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orderService.getOrderById(kept.getId()).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(9);
+
+        orderService.cancelOrder(kept.getId());
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+    }
+
+    private Long createBook(String prefix) {
+        BookDTO book = BookServiceTest.newBook(prefix + System.nanoTime());
+        book.setStockQuantity(INITIAL_STOCK);
+        return bookService.createBook(book).getId();
+    }
+
+    // Runs the attempts across THREADS threads and returns the elapsed seconds
+    private void load(Runnable attempt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        attempt.run();
+                    } catch (InsufficientStockException e) {
+                        // sold out by orders the workers already settled; rejected up front
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    private void drainConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PARTITIONS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            int owned = partition;
+            futures.add(executor.submit(() -> {
+                while (orderIntakeService.processBatch(owned, PARTITIONS, 50) > 0) {
+                    // keep draining this partition
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+}
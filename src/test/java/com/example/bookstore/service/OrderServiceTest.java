@@ -0,0 +1,147 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.exception.InsufficientStockException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Statement counts come from Hibernate statistics, so the intake workers must not poll in the background
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "bookstore.orders.intake.workers=0"
+})
+class OrderServiceTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void largeBasketUsesConstantNumberOfStatements() {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        List<Long> bookIds = createBooks(50);
+
+        // Warm up so sequence pools are not charged to the single-line order
+        orderService.createOrder(newOrder(customerId, bookIds.subList(0, 1)));
+
+        statistics.clear();
+        orderService.createOrder(newOrder(customerId, bookIds.subList(0, 1)));
+        long singleLine = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        OrderDTO created = orderService.createOrder(newOrder(customerId, bookIds));
+        long fiftyLines = statistics.getPrepareStatementCount();
+
+        assertThat(created.getItems()).hasSize(50);
+        // customer, books, stock update, order insert, item insert batch, at most two sequence calls
+        assertThat(fiftyLines).isLessThanOrEqualTo(7);
+        assertThat(fiftyLines - singleLine).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shortBookRollsBackWholeBasket() {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        List<Long> bookIds = createBooks(3);
+        bookService.updateStock(bookIds.get(2), -10);
+
+        assertThatThrownBy(() -> orderService.createOrder(newOrder(customerId, bookIds)))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(bookService.getBookById(bookIds.get(0)).getStockQuantity()).isEqualTo(10);
+        assertThat(bookService.getBookById(bookIds.get(1)).getStockQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void cancelRestoresStockOfRepeatedLines() {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = createBooks(1).get(0);
+        OrderDTO order = newOrder(customerId, List.of(bookId, bookId));
+
+        Long orderId = orderService.createOrder(order).getId();
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(8);
+
+        orderService.cancelOrder(orderId);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void orderReadPathsAvoidNPlusOneQueries() {
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        List<Long> bookIds = createBooks(3);
+        for (int i = 0; i < 4; i++) {
+            orderService.createOrder(newOrder(customerId, bookIds));
+        }
+
+        statistics.clear();
+        List<OrderDTO> byCustomer = orderService.getOrdersByCustomerId(customerId);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(byCustomer).hasSize(4);
+        assertThat(byCustomer).allSatisfy(order -> {
+            assertThat(order.getCustomerId()).isEqualTo(customerId);
+            assertThat(order.getItems()).hasSize(3)
+                    .allSatisfy(item -> assertThat(item.getBookTitle()).startsWith("Test Book"));
+        });
+
+        statistics.clear();
+        List<OrderDTO> all = orderService.getAllOrders();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(all).extracting(OrderDTO::getId).doesNotHaveDuplicates();
+
+        statistics.clear();
+        orderService.getOrdersByStatus(OrderStatus.PENDING);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+
+        statistics.clear();
+        orderService.getOrderById(byCustomer.get(0).getId());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    private List<Long> createBooks(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(bookService.createBook(BookServiceTest.newBook("order-" + System.nanoTime() + "-" + i)).getId());
+        }
+        return ids;
+    }
+
+    static OrderDTO newOrder(Long customerId, List<Long> bookIds) {
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setBookId(bookId);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(customerId);
+        order.setItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BulkStatusResultDTO;
+import com.example.bookstore.dto.OrderStatusChangeDTO.Outcome;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Intake off, so submitted orders stay queued
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class PendingOrderExpiryTest {
+
+    @Autowired
+    private PendingOrderExpiry pendingOrderExpiry;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void expiredOrdersGiveTheirStockBack() {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("expiry-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long stale = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        Long fresh = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        Long queued = orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        jdbcTemplate.update("update orders set order_date = ? where id in (?, ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(2)), stale, queued);
+        double expiredBefore = meterRegistry.get("bookstore.orders.expired").counter().count();
+
+        pendingOrderExpiry.expireStaleOrders();
+
+        assertThat(orderService.getOrderById(stale).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orderService.getOrderById(fresh).getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(orderService.getOrderById(queued).getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(9);
+        assertThat(meterRegistry.get("bookstore.orders.expired").counter().count()).isGreaterThan(expiredBefore);
+        assertThat(meterRegistry.get("bookstore.orders.expiry.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void ordersConfirmedAfterTheScanAreNotExpired() {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("expiry-race-" + System.nanoTime())).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long orderId = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        jdbcTemplate.update("update orders set order_date = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(2)), orderId);
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(30);
+
+        // The job's scan still sees the order pending; it is confirmed before the chunk is cancelled
+        List<Long> scanned = orderRepository.findExpiredPendingIds(cutoff, 0, 1, Limit.unlimited());
+        assertThat(scanned).contains(orderId);
+        orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED);
+
+        BulkStatusResultDTO result = orderBatchService.expireOrders(List.of(orderId), cutoff);
+
+        assertThat(result.getOrders().get(0).getOutcome()).isEqualTo(Outcome.NOT_ALLOWED);
+        assertThat(orderService.getOrderById(orderId).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(9);
+    }
+
+    @Test
+    void backlogIsCancelledInChunks() {
+        BookDTO book = BookServiceTest.newBook("expiry-backlog-" + System.nanoTime());
+        book.setStockQuantity(0);
+        Long bookId = bookService.createBook(book).getId();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        int orders = 5_000;
+        long base = 6_000_000_000L;
+        Timestamp placed = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<Object[]> orderRows = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            orderRows.add(new Object[]{base + i, customerId, placed});
+            itemRows.add(new Object[]{base + i, base + i, bookId});
+        }
+        jdbcTemplate.batchUpdate("insert into orders (id, customer_id, total_amount, status, order_date, version) "
+                + "values (?, ?, 9.99, 'PENDING', ?, 0)", orderRows);
+        jdbcTemplate.batchUpdate("insert into order_items (id, order_id, book_id, quantity, price, subtotal, category) "
+                + "values (?, ?, ?, 1, 9.99, 9.99, 'Fiction')", itemRows);
+
+        assertThat(pendingOrderExpiry.expireStaleOrders()).isGreaterThanOrEqualTo(orders);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from orders where customer_id = ? and status = 'CANCELLED'",
+                Long.class, customerId)).isEqualTo(orders);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(orders);
+    }
+}
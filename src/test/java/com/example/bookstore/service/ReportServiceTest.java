@@ -0,0 +1,233 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BestsellerDTO;
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.BookSalesDTO;
+import com.example.bookstore.dto.CategorySalesDTO;
+import com.example.bookstore.dto.DailySalesDTO;
+import com.example.bookstore.entity.OrderStatus;
+import com.example.bookstore.event.SalesChangedEvent;
+import com.example.bookstore.report.BestsellerLeaderboard;
+import com.example.bookstore.report.BestsellerWindow;
+import com.example.bookstore.report.SalesRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Workers are disabled so submitted orders stay PENDING until drained explicitly
+@SpringBootTest(properties = "bookstore.orders.intake.workers=0")
+class ReportServiceTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private BestsellerLeaderboard bestsellerLeaderboard;
+
+    @Autowired
+    private SalesRollup salesRollup;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rollupsFollowOrdersAndCancellations() throws Exception {
+        String category = "report-" + System.nanoTime();
+        Long bookId = createBook(category, 10);
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+
+        Long first = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        Long second = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        assertThat(categorySales(category).getUnits()).isEqualTo(3);
+        assertThat(categorySales(category).getRevenue()).isEqualByComparingTo("29.97");
+        assertThat(bookSales(bookId)).extracting(DailySalesDTO::getUnits).containsExactly(3L);
+
+        orderService.cancelOrder(first);
+        assertThat(categorySales(category).getUnits()).isEqualTo(2);
+        assertThat(bookSales(bookId)).extracting(DailySalesDTO::getRevenue)
+                .singleElement().satisfies(revenue -> assertThat(revenue).isEqualByComparingTo("19.98"));
+
+        // Status changes neither cancel nor reopen, so they never touch the figures
+        assertThatThrownBy(() -> orderService.updateOrderStatus(second, OrderStatus.CANCELLED))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderService.updateOrderStatus(first, OrderStatus.CONFIRMED))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(categorySales(category).getUnits()).isEqualTo(2);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isEqualTo(8);
+
+        // A rebuild from the order tables lands on the incrementally maintained figures
+        reportService.rebuildRollups(LocalDate.now(), LocalDate.now());
+        assertThat(categorySales(category).getUnits()).isEqualTo(2);
+        assertThat(categorySales(category).getRevenue()).isEqualByComparingTo("19.98");
+        assertThat(bookSales(bookId)).extracting(DailySalesDTO::getUnits).containsExactly(2L);
+    }
+
+    @Test
+    void salesStayUnderTheCategoryTheyWereSoldIn() throws Exception {
+        String category = "report-moved-" + System.nanoTime();
+        String renamed = category + "-renamed";
+        Long bookId = createBook(category, 10);
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long first = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+
+        BookDTO book = bookService.getBookById(bookId);
+        book.setCategory(renamed);
+        bookService.updateBook(bookId, book);
+        orderService.cancelOrder(first);
+        assertThat(categorySales(category).getUnits()).isEqualTo(1);
+        assertThat(reportService.getCategorySales(null, null)).extracting(CategorySalesDTO::getCategory)
+                .doesNotContain(renamed);
+
+        reportService.rebuildRollups(LocalDate.now(), LocalDate.now());
+        assertThat(categorySales(category).getUnits()).isEqualTo(1);
+        assertThat(reportService.getCategorySales(null, null)).extracting(CategorySalesDTO::getCategory)
+                .doesNotContain(renamed);
+    }
+
+    @Test
+    void concurrentFirstSalesOfADayBothCount() throws Exception {
+        String category = "race-" + System.nanoTime();
+        LocalDateTime orderedAt = LocalDateTime.of(2099, 1, 1, 12, 0);
+        SalesChangedEvent sale = new SalesChangedEvent(List.of(
+                new SalesChangedEvent.Line(orderedAt, Long.MAX_VALUE, category, 1, new BigDecimal("9.99"))));
+
+        // The first transaction creates the rows and stays open while the second one tries to create them too
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            salesRollup.onSalesChanged(sale);
+            written.countDown();
+            await(release);
+        }));
+        assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> salesRollup.onSalesChanged(sale)));
+        Thread.sleep(200);
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        assertThat(jdbcTemplate.queryForObject("select units from sales_daily_category where category = ?",
+                Long.class, category)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select units from sales_daily_book where book_id = ? and sale_date = ?",
+                Long.class, Long.MAX_VALUE, orderedAt.toLocalDate())).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedSubmissionsAreTakenBackOut() {
+        String category = "report-async-" + System.nanoTime();
+        Long bookId = createBook(category, 1);
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+
+        orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        orderService.submitOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        assertThat(categorySales(category).getUnits()).isEqualTo(2);
+
+        while (orderIntakeService.processBatch(0, 1, 100) > 0) {
+            // drain
+        }
+        assertThat(categorySales(category).getUnits()).isEqualTo(1);
+    }
+
+    @Test
+    void topSellersAreRankedByUnits() {
+        String category = "report-top-" + System.nanoTime();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = createBook(category, 200);
+        for (int i = 0; i < 100; i++) {
+            orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId));
+        }
+
+        List<BookSalesDTO> top = reportService.getTopSellers(null, null, ReportService.MAX_TOP_SELLERS);
+        assertThat(top).extracting(BookSalesDTO::getUnits).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+        assertThat(top).filteredOn(book -> book.getBookId().equals(bookId)).singleElement().satisfies(book -> {
+            assertThat(book.getUnits()).isEqualTo(100);
+            assertThat(book.getTitle()).startsWith("Test Book");
+        });
+    }
+
+    @Test
+    void leaderboardFollowsCommittedOrders() {
+        String category = "report-leaderboard-" + System.nanoTime();
+        Long customerId = customerService.createCustomer(StockReservationServiceTest.newCustomer()).getId();
+        Long bookId = createBook(category, 100);
+        Long cancelled = null;
+        for (int i = 0; i < 40; i++) {
+            cancelled = orderService.createOrder(StockReservationServiceTest.newOrder(customerId, bookId)).getId();
+        }
+        orderService.cancelOrder(cancelled);
+        bestsellerLeaderboard.refresh();
+
+        assertThat(leaderboardUnits(BestsellerWindow.HOUR, bookId)).isEqualTo(39);
+        assertThat(leaderboardUnits(BestsellerWindow.WEEK, bookId)).isEqualTo(39);
+
+        // A reload from the order tables agrees with the incrementally maintained counts
+        bestsellerLeaderboard.load();
+        assertThat(leaderboardUnits(BestsellerWindow.DAY, bookId)).isEqualTo(39);
+    }
+
+    private long leaderboardUnits(BestsellerWindow window, Long bookId) {
+        return bestsellerLeaderboard.top(window, 100).stream()
+                .filter(entry -> entry.getBookId().equals(bookId))
+                .mapToLong(BestsellerDTO::getUnits)
+                .findFirst()
+                .orElse(0);
+    }
+
+    private Long createBook(String category, int stock) {
+        BookDTO book = BookServiceTest.newBook(category);
+        book.setCategory(category);
+        book.setStockQuantity(stock);
+        book.setPrice(new BigDecimal("9.99"));
+        return bookService.createBook(book).getId();
+    }
+
+    private CategorySalesDTO categorySales(String category) {
+        return reportService.getCategorySales(null, null).stream()
+                .filter(sales -> sales.getCategory().equals(category))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<DailySalesDTO> bookSales(Long bookId) {
+        return reportService.getBookSales(bookId, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
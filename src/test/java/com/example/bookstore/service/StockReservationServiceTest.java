@@ -0,0 +1,108 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.BookDTO;
+import com.example.bookstore.dto.CustomerDTO;
+import com.example.bookstore.dto.OrderDTO;
+import com.example.bookstore.dto.OrderItemDTO;
+import com.example.bookstore.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class StockReservationServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 150;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void concurrentCheckoutNeverOversells() throws Exception {
+        BookDTO book = BookServiceTest.newBook("stock-" + System.nanoTime());
+        book.setStockQuantity(INITIAL_STOCK);
+        Long bookId = bookService.createBook(book).getId();
+        Long customerId = customerService.createCustomer(newCustomer()).getId();
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        orderService.createOrder(newOrder(customerId, bookId));
+                        placed.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        assertThat(placed.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(attempts - INITIAL_STOCK);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isZero();
+    }
+
+    @Test
+    void manualAdjustmentCannotDriveStockNegative() {
+        Long bookId = bookService.createBook(BookServiceTest.newBook("adjust-" + System.nanoTime())).getId();
+
+        bookService.updateStock(bookId, -10);
+        assertThatThrownBy(() -> bookService.updateStock(bookId, -1))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(bookService.getBookById(bookId).getStockQuantity()).isZero();
+    }
+
+    static CustomerDTO newCustomer() {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setFirstName("Load");
+        dto.setLastName("Tester");
+        dto.setEmail("load-" + System.nanoTime() + "@example.com");
+        dto.setPhone("+10000000000");
+        dto.setAddress("1 Test Way");
+        return dto;
+    }
+
+    static OrderDTO newOrder(Long customerId, Long bookId) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setBookId(bookId);
+        item.setQuantity(1);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(customerId);
+        order.setItems(List.of(item));
+        return order;
+    }
+}